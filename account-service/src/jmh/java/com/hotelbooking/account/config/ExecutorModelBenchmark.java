@@ -0,0 +1,82 @@
+package com.hotelbooking.account.config;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * One request handler call per invocation, issued by 128 concurrent clients, for each {@link ExecutorModel}.
+ * A handler takes one of `connections` permits, the stand-in for the Hikari pool, holds it for ioMillis of
+ * blocking DB latency, then does a little CPU work. Throughput gives calls per second, SampleTime the
+ * latency distribution including time queued for a thread and for a connection; read p99 from it.
+ * VIRTUAL only differs from CACHED when the benchmark runs on Java 21 (build with -Pjava21,jmh).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Threads(128)
+@Fork(1)
+public class ExecutorModelBenchmark {
+
+    @Param({"CACHED", "BOUNDED", "VIRTUAL"})
+    private ExecutorModel model;
+
+    @Param({"32", "200"})
+    private int poolSize;
+
+    @Param({"10"})
+    private int connections;
+
+    @Param({"5"})
+    private int ioMillis;
+
+    private ExecutorService executor;
+    private Semaphore connectionPool;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        // Room for every client, so BOUNDED queues instead of rejecting
+        executor = model.createExecutor("bench-", poolSize, 1024);
+        connectionPool = new Semaphore(connections, true);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws InterruptedException {
+        executor.shutdown();
+        executor.awaitTermination(10, TimeUnit.SECONDS);
+    }
+
+    @Benchmark
+    public int call() throws InterruptedException, ExecutionException {
+        return executor.submit(this::handle).get();
+    }
+
+    private int handle() throws InterruptedException {
+        connectionPool.acquire();
+        try {
+            Thread.sleep(ioMillis);
+        } finally {
+            connectionPool.release();
+        }
+        return Integer.toHexString(ThreadLocalRandom.current().nextInt()).hashCode();
+    }
+}
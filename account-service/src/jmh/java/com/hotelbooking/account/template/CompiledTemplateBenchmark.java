@@ -0,0 +1,75 @@
+package com.hotelbooking.account.template;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Render cost against template size, with the slot count held fixed. Compiled rendering should
+ * scale with the output alone (about the same ns per KB at every size), while the
+ * replace-per-slot baseline rescans the whole template once per slot.
+ * Divide the score by templateKb to compare the per-KB cost.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CompiledTemplateBenchmark {
+
+    private static final Map<String, String> VALUES = Map.of(
+            "username", "Nguyễn Văn <An>",
+            "verificationUrl", "https://example.com/auth/verify-email?token=3f1c9a&lang=vi",
+            "resetUrl", "https://example.com/auth/reset-password?token=9b2e77",
+            "exploreUrl", "https://example.com");
+
+    @Param({"1", "16", "64"})
+    private int templateKb;
+
+    private String source;
+    private CompiledTemplate compiled;
+
+    @Setup
+    public void setUp() {
+        // Slots at the start and the end, filler of the requested size in between
+        StringBuilder filler = new StringBuilder();
+        while (filler.length() < templateKb * 1024) {
+            filler.append("<p style=\"margin:0 0 12px\">Cảm ơn bạn đã sử dụng dịch vụ đặt phòng khách sạn.</p>\n");
+        }
+        source = "<h1>Xin chào {{username}}</h1><a href=\"{{verificationUrl}}\">Xác thực</a>\n"
+                + filler
+                + "<a href=\"{{resetUrl}}\">Đặt lại</a><a href=\"{{exploreUrl}}\">Khám phá</a>";
+        compiled = CompiledTemplate.compile("benchmark", "", source);
+    }
+
+    @Benchmark
+    public String compiledRender() {
+        return compiled.render(VALUES);
+    }
+
+    @Benchmark
+    public String replacePerSlot() {
+        String html = source;
+        for (Map.Entry<String, String> entry : VALUES.entrySet()) {
+            html = html.replace("{{" + entry.getKey() + "}}", escape(entry.getValue()));
+        }
+        return html;
+    }
+
+    private static String escape(String value) {
+        return value.replace("&", "&amp;").replace("<", "&lt;").replace(">", "&gt;")
+                .replace("\"", "&quot;").replace("'", "&#39;");
+    }
+}
@@ -0,0 +1,65 @@
+package com.hotelbooking.account.config;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Threading model for request handlers that block on JPA and SendGrid I/O.
+ * <ul>
+ *   <li>CACHED - unbounded cached platform-thread pool (the gRPC default)</li>
+ *   <li>BOUNDED - fixed number of platform threads; excess calls wait in a queue of queueCapacity, and once
+ *       that is full execute throws RejectedExecutionException</li>
+ *   <li>VIRTUAL - one virtual thread per task; needs a Java 21 runtime (build with -Pjava21)</li>
+ * </ul>
+ */
+@Slf4j
+public enum ExecutorModel {
+    CACHED,
+    BOUNDED,
+    VIRTUAL;
+
+    /**
+     * @param poolSize      threads of a BOUNDED pool, ignored by the other models
+     * @param queueCapacity tasks a BOUNDED pool holds while all threads are busy, ignored by the other models
+     */
+    public ExecutorService createExecutor(String threadNamePrefix, int poolSize, int queueCapacity) {
+        switch (this) {
+            case BOUNDED:
+                return new ThreadPoolExecutor(poolSize, poolSize, 0L, TimeUnit.MILLISECONDS,
+                        new LinkedBlockingQueue<>(queueCapacity), namedThreads(threadNamePrefix),
+                        new ThreadPoolExecutor.AbortPolicy());
+            case VIRTUAL:
+                ExecutorService virtual = newVirtualThreadPerTaskExecutor();
+                if (virtual != null) {
+                    return virtual;
+                }
+                log.warn("Virtual threads need Java 21+, running on {}; falling back to a cached pool for {}",
+                        Runtime.version(), threadNamePrefix);
+                return Executors.newCachedThreadPool(namedThreads(threadNamePrefix));
+            case CACHED:
+            default:
+                return Executors.newCachedThreadPool(namedThreads(threadNamePrefix));
+        }
+    }
+
+    // Looked up reflectively so the default Java 17 build still compiles
+    private static ExecutorService newVirtualThreadPerTaskExecutor() {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException e) {
+            return null;
+        }
+    }
+
+    private static ThreadFactory namedThreads(String prefix) {
+        AtomicInteger counter = new AtomicInteger();
+        return runnable -> new Thread(runnable, prefix + counter.incrementAndGet());
+    }
+}
@@ -0,0 +1,20 @@
+package com.hotelbooking.account.config;
+
+import org.springframework.boot.autoconfigure.flyway.FlywayConfigurationCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+public class FlywayConfig {
+
+    /**
+     * Tables and columns are created by Hibernate (spring.jpa.hibernate.ddl-auto=update, set in
+     * application.yml because Spring Boot leaves it at none once Flyway is present). Flyway runs
+     * before Hibernate and only applies the data migrations ddl-auto cannot do. Existing schemas
+     * without a history table are baselined at version 0 so every migration still runs on them.
+     */
+    @Bean
+    public FlywayConfigurationCustomizer flywayBaseline() {
+        return configuration -> configuration.baselineOnMigrate(true).baselineVersion("0");
+    }
+}
@@ -1,25 +1,68 @@
 package com.hotelbooking.account.config;
 
+import com.hotelbooking.account.grpc.CallAdmissionControl;
 import com.hotelbooking.account.grpc.JwtAuthenticationInterceptor;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.jvm.ExecutorServiceMetrics;
 import net.devh.boot.grpc.server.serverfactory.GrpcServerConfigurer;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
+import java.util.concurrent.ExecutorService;
+
 @Configuration
 public class GrpcConfig {
 
     private final JwtAuthenticationInterceptor jwtAuthenticationInterceptor;
 
+    @Value("${grpc.executor.model:CACHED}")
+    private ExecutorModel model;
+
+    @Value("${grpc.executor.pool-size:32}")
+    private int poolSize;
+
+    @Value("${grpc.executor.queue-capacity:128}")
+    private int queueCapacity;
+
     public GrpcConfig(JwtAuthenticationInterceptor jwtAuthenticationInterceptor) {
         this.jwtAuthenticationInterceptor = jwtAuthenticationInterceptor;
     }
 
+    /**
+     * Executor that runs gRPC service methods, selected by grpc.executor.model (cached | bounded | virtual).
+     * A bounded pool is usually sized close to the JDBC connection pool, since every call blocks on the DB.
+     */
+    @Bean(destroyMethod = "shutdown")
+    public ExecutorService grpcServerExecutor(MeterRegistry meterRegistry) {
+        // A call gives back its admission permit just before its last task returns the thread,
+        // so the queue has a slot per thread on top of queue-capacity and never rejects an admitted call
+        ExecutorService executor = model.createExecutor("grpc-server-", poolSize, poolSize + queueCapacity);
+        return ExecutorServiceMetrics.monitor(meterRegistry, executor, "grpc.server.executor");
+    }
+
     /**
      * Register JWT interceptor for all gRPC services
-     * The grpc-spring-boot-starter will automatically apply this interceptor
+     * The grpc-spring-boot-starter will automatically apply this interceptor.
+     * With a bounded pool, calls beyond pool-size + queue-capacity are answered with RESOURCE_EXHAUSTED.
      */
     @Bean
-    public GrpcServerConfigurer grpcServerConfigurer() {
-        return serverBuilder -> serverBuilder.intercept(jwtAuthenticationInterceptor);
+    public GrpcServerConfigurer grpcServerConfigurer(@Qualifier("grpcServerExecutor") ExecutorService grpcServerExecutor,
+                                                     MeterRegistry meterRegistry) {
+        if (model != ExecutorModel.BOUNDED) {
+            return serverBuilder -> serverBuilder
+                    .executor(grpcServerExecutor)
+                    .intercept(jwtAuthenticationInterceptor);
+        }
+        CallAdmissionControl admission =
+                new CallAdmissionControl(grpcServerExecutor, poolSize + queueCapacity, meterRegistry);
+        return serverBuilder -> serverBuilder
+                // Only the admission decision runs on the transport thread, each admitted call then moves to the pool
+                .directExecutor()
+                .callExecutor(admission)
+                .intercept(jwtAuthenticationInterceptor)
+                // Added last so it runs first
+                .intercept(admission);
     }
 }
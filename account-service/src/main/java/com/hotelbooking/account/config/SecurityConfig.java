@@ -1,7 +1,9 @@
 package com.hotelbooking.account.config;
 
 import com.hotelbooking.account.security.CustomUserDetailsService;
+import com.hotelbooking.account.security.PasswordEncoderFactory;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
@@ -11,7 +13,6 @@ import org.springframework.security.authentication.AuthenticationProvider;
 import org.springframework.security.authentication.dao.DaoAuthenticationProvider;
 import org.springframework.security.config.annotation.authentication.configuration.AuthenticationConfiguration;
 import org.springframework.security.config.annotation.method.configuration.EnableMethodSecurity;
-import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
 
 /**
@@ -28,21 +29,25 @@ public class SecurityConfig {
     private final CustomUserDetailsService userDetailsService;
 
     /**
-     * Password encoder bean - used by both gRPC interceptor and services
+     * Password encoder bean - used by both gRPC interceptor and services.
+     * A strength of 0 calibrates the BCrypt cost to the target hash time on this host.
      */
     @Bean
-    public PasswordEncoder passwordEncoder() {
-        return new BCryptPasswordEncoder();
+    public PasswordEncoder passwordEncoder(@Value("${password-hashing.bcrypt.strength:0}") int strength,
+                                           @Value("${password-hashing.bcrypt.target-ms:250}") long targetMs,
+                                           @Value("${password-hashing.bcrypt.max-strength:14}") int maxStrength) {
+        int cost = strength > 0 ? strength : PasswordEncoderFactory.calibrateStrength(targetMs, maxStrength);
+        return PasswordEncoderFactory.create(cost);
     }
 
     /**
      * Authentication provider bean
      */
     @Bean
-    public AuthenticationProvider authenticationProvider() {
+    public AuthenticationProvider authenticationProvider(PasswordEncoder passwordEncoder) {
         DaoAuthenticationProvider authProvider = new DaoAuthenticationProvider();
         authProvider.setUserDetailsService(userDetailsService);
-        authProvider.setPasswordEncoder(passwordEncoder());
+        authProvider.setPasswordEncoder(passwordEncoder);
         return authProvider;
     }
 
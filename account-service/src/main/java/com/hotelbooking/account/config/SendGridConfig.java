@@ -0,0 +1,51 @@
+package com.hotelbooking.account.config;
+
+import com.sendgrid.Client;
+import com.sendgrid.SendGrid;
+import org.apache.http.client.config.RequestConfig;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.impl.client.HttpClients;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+public class SendGridConfig {
+
+    /**
+     * One pooled HTTP client for every SendGrid call, so connections and TLS sessions are reused
+     * instead of being set up per email
+     */
+    @Bean(destroyMethod = "close")
+    public CloseableHttpClient sendGridHttpClient(@Value("${sendgrid.max-connections:8}") int maxConnections,
+                                                  @Value("${sendgrid.connect-timeout-ms:5000}") int connectTimeoutMs,
+                                                  @Value("${sendgrid.read-timeout-ms:10000}") int readTimeoutMs) {
+        PoolingHttpClientConnectionManager connectionManager = new PoolingHttpClientConnectionManager();
+        connectionManager.setMaxTotal(maxConnections);
+        connectionManager.setDefaultMaxPerRoute(maxConnections);
+        RequestConfig requestConfig = RequestConfig.custom()
+                .setConnectTimeout(connectTimeoutMs)
+                .setConnectionRequestTimeout(connectTimeoutMs)
+                .setSocketTimeout(readTimeoutMs)
+                .build();
+        return HttpClients.custom()
+                .setConnectionManager(connectionManager)
+                .setDefaultRequestConfig(requestConfig)
+                .build();
+    }
+
+    /**
+     * Shared SendGrid client. Point sendgrid.host at a local fake (with sendgrid.use-http=true)
+     * to run without the real API.
+     */
+    @Bean
+    public SendGrid sendGrid(CloseableHttpClient sendGridHttpClient,
+                             @Value("${sendgrid.api-key}") String apiKey,
+                             @Value("${sendgrid.host:api.sendgrid.com}") String host,
+                             @Value("${sendgrid.use-http:false}") boolean useHttp) {
+        SendGrid sendGrid = new SendGrid(apiKey, new Client(sendGridHttpClient, useHttp));
+        sendGrid.setHost(host);
+        return sendGrid;
+    }
+}
@@ -0,0 +1,42 @@
+package com.hotelbooking.account.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.jvm.ExecutorServiceMetrics;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.boot.web.embedded.tomcat.TomcatServletWebServerFactory;
+import org.springframework.boot.web.server.WebServerFactoryCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.concurrent.ExecutorService;
+
+/**
+ * Same executor-model switch as {@link GrpcConfig}, for the REST side.
+ * CACHED keeps Tomcat's own pool (sized by server.tomcat.threads.max); BOUNDED and VIRTUAL
+ * replace it with the executor built by {@link ExecutorModel}. That executor is a bean so it is
+ * shut down with the context, after the web server has stopped. Once a BOUNDED pool's queue is full,
+ * Tomcat closes new connections it cannot hand to a thread.
+ */
+@Configuration
+public class TomcatConfig {
+
+    @Bean(destroyMethod = "shutdown")
+    @ConditionalOnExpression("!'${server.tomcat.executor-model:CACHED}'.equalsIgnoreCase('CACHED')")
+    public ExecutorService tomcatExecutor(@Value("${server.tomcat.executor-model:CACHED}") ExecutorModel model,
+                                          @Value("${server.tomcat.executor-pool-size:200}") int poolSize,
+                                          @Value("${server.tomcat.executor-queue-capacity:1000}") int queueCapacity,
+                                          MeterRegistry meterRegistry) {
+        ExecutorService executor = model.createExecutor("http-", poolSize, queueCapacity);
+        return ExecutorServiceMetrics.monitor(meterRegistry, executor, "http.server.executor");
+    }
+
+    @Bean
+    public WebServerFactoryCustomizer<TomcatServletWebServerFactory> tomcatExecutorCustomizer(
+            @Qualifier("tomcatExecutor") ObjectProvider<ExecutorService> tomcatExecutor) {
+        return factory -> tomcatExecutor.ifAvailable(executor ->
+                factory.addProtocolHandlerCustomizers(protocolHandler -> protocolHandler.setExecutor(executor)));
+    }
+}
@@ -33,9 +33,12 @@ public class AdminUserController {
             @RequestParam(defaultValue = "") String search,
             @RequestParam(defaultValue = "createdAt") String sortBy,
             @RequestParam(defaultValue = "desc") String sortDirection,
-            @RequestParam(required = false) String role
+            @RequestParam(required = false) String role,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Boolean includeTotal
     ) {
-        PaginationDTO paginationDTO = new PaginationDTO(pageNumber, pageSize, search, sortBy, sortDirection);
+        PaginationDTO paginationDTO = new PaginationDTO(pageNumber, pageSize, search, sortBy, sortDirection,
+                cursor, includeTotal != null ? includeTotal : cursor == null);
 
         PaginationResponse<AccountDTO> users;
         if (role != null && !role.trim().isEmpty()) {
@@ -55,9 +58,12 @@ public class AdminUserController {
             @RequestParam(defaultValue = "10") int pageSize,
             @RequestParam(defaultValue = "") String search,
             @RequestParam(defaultValue = "createdAt") String sortBy,
-            @RequestParam(defaultValue = "desc") String sortDirection
+            @RequestParam(defaultValue = "desc") String sortDirection,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Boolean includeTotal
     ) {
-        PaginationDTO paginationDTO = new PaginationDTO(pageNumber, pageSize, search, sortBy, sortDirection);
+        PaginationDTO paginationDTO = new PaginationDTO(pageNumber, pageSize, search, sortBy, sortDirection,
+                cursor, includeTotal != null ? includeTotal : cursor == null);
         PaginationResponse<AccountDTO> users = adminUserService.getUsersByRole(paginationDTO, roleName);
 
         return ResponseEntity.ok(ApiResponse.success(users, "Users with role " + roleName + " retrieved successfully"));
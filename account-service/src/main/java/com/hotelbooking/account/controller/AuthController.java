@@ -3,15 +3,19 @@ package com.hotelbooking.account.controller;
 import com.hotelbooking.account.dto.*;
 import com.hotelbooking.account.response.ApiResponse;
 import com.hotelbooking.account.security.CustomUserPrincipal;import com.hotelbooking.account.security.CustomUserPrincipal;import com.hotelbooking.account.service.AuthService;
+import com.hotelbooking.account.security.ClientAddressResolver;
+import com.hotelbooking.account.security.LoginThrottledException;
 import com.hotelbooking.account.service.BlacklistTokenService;
-import com.hotelbooking.account.service.EmailService;
 import com.hotelbooking.account.service.JwtService;
+import com.hotelbooking.account.service.PasswordHashingBusyException;
 import com.hotelbooking.account.service.RefreshTokenService;
 import com.hotelbooking.account.validation.Validation;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.validation.Valid;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.crypto.password.PasswordEncoder;
@@ -30,7 +34,7 @@ public class AuthController {
     private final JwtService jwtService;
     private final RefreshTokenService refreshTokenService;
     private final BlacklistTokenService blacklistTokenService;
-    private final EmailService emailService;
+    private final ClientAddressResolver clientAddressResolver;
     private final Logger logger = LoggerFactory.getLogger(AuthController.class);
 
     public AuthController(AuthService authService,
@@ -38,25 +42,35 @@ public class AuthController {
                           JwtService jwtService,
                           RefreshTokenService refreshTokenService,
                           BlacklistTokenService blacklistTokenService,
-                          EmailService emailService) {
+                          ClientAddressResolver clientAddressResolver) {
         this.authService = authService;
         this.passwordEncoder = passwordEncoder;
         this.jwtService = jwtService;
         this.refreshTokenService = refreshTokenService;
         this.blacklistTokenService = blacklistTokenService;
-        this.emailService = emailService;
+        this.clientAddressResolver = clientAddressResolver;
     }
 
     @PostMapping("/login")
-    public ResponseEntity<?> login(@Valid @RequestBody LoginRequest request, BindingResult bindingResult) {
+    public ResponseEntity<?> login(@Valid @RequestBody LoginRequest request, BindingResult bindingResult,
+                                   HttpServletRequest httpRequest) {
         try {
             if(Validation.validateBody(bindingResult) != null) {
                 return Validation.validateBody(bindingResult);
             }
-            AuthResponse authResponse = authService.login(request.getEmail(), request.getPassword());
+            AuthResponse authResponse = authService.login(request.getEmail(), request.getPassword(),
+                    clientAddress(httpRequest));
 
             return ResponseEntity.ok(new ApiResponse<>(true, "Login successful", authResponse, 200));
         }
+        catch (LoginThrottledException e) {
+            return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                    .header(HttpHeaders.RETRY_AFTER, String.valueOf(Math.max(1, e.getRetryAfter().toSeconds())))
+                    .body(new ApiResponse<>(false, e.getMessage(), null, 429));
+        }
+        catch (PasswordHashingBusyException e) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body(new ApiResponse<>(false, e.getMessage(), null, 503));
+        }
         catch (Exception e) {
             logger.error("Error during login", e.getMessage(), e);
             return ResponseEntity.badRequest().body(new ApiResponse<>(false, e.getMessage(), null, 400));
@@ -73,6 +87,9 @@ public class AuthController {
             AccountDTO account = authService.registerAccount(accountDTO);
             return ResponseEntity.ok(new ApiResponse<>(true, "Account registered successfully", account, 200));
         }
+        catch (PasswordHashingBusyException e) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body(new ApiResponse<>(false, e.getMessage(), null, 503));
+        }
         catch(Exception e) {
             logger.error("Error while registering account", e.getMessage(), e);
             return ResponseEntity.badRequest().body(new ApiResponse<>(false, e.getMessage(), null, 400));
@@ -111,10 +128,12 @@ public class AuthController {
 
             final String jwt = authHeader.substring(7);
             String userEmail = null;
+            String username = null;
             
-            // Get user email from authentication if available
+            // Get user email from authentication if available; tokens issued before the email claim have none
             if (authentication != null && authentication.getPrincipal() instanceof CustomUserPrincipal userPrincipal) {
                 userEmail = userPrincipal.getEmail();
+                username = userPrincipal.getUsername();
             }
 
             // Blacklist the token
@@ -123,7 +142,7 @@ public class AuthController {
             // Optionally revoke refresh token if available
             // This would require additional implementation in RefreshTokenService
 
-            logger.info("User logged out successfully: {}", userEmail);
+            logger.info("User logged out successfully: {}", userEmail != null ? userEmail : username);
             return ResponseEntity.ok(new ApiResponse<>(true, "Logout successful", null, 200));
         } catch (Exception e) {
             logger.error("Error during logout", e);
@@ -142,11 +161,9 @@ public class AuthController {
                 );
             }
 
+            // Also queues the welcome email
             AccountDTO account = authService.verifyEmail(token);
             
-            // Send welcome email
-            emailService.sendWelcomeEmail(account.getEmail(), account.getUsername());
-            
             return ResponseEntity.ok(
                 new ApiResponse<>(true, "Email verified successfully. Account is now active.", account, 200)
             );
@@ -273,6 +290,10 @@ public class AuthController {
             return ResponseEntity.ok(
                 new ApiResponse<>(true, "Password changed successfully", null, 200)
             );
+        } catch (PasswordHashingBusyException e) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body(
+                new ApiResponse<>(false, e.getMessage(), null, 503)
+            );
         } catch (RuntimeException e) {
             logger.error("Failed to change password", e);
             return ResponseEntity.badRequest().body(
@@ -320,6 +341,10 @@ public class AuthController {
             return ResponseEntity.ok(
                 new ApiResponse<>(true, "Password reset successfully. You can now login with your new password.", null, 200)
             );
+        } catch (PasswordHashingBusyException e) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body(
+                new ApiResponse<>(false, e.getMessage(), null, 503)
+            );
         } catch (RuntimeException e) {
             logger.error("Password reset failed", e);
             return ResponseEntity.badRequest().body(
@@ -337,4 +362,8 @@ public class AuthController {
     public ResponseEntity<?> health() {
         return ResponseEntity.ok(Map.of("status", "Account service is running"));
     }
+
+    private String clientAddress(HttpServletRequest request) {
+        return clientAddressResolver.resolve(request.getRemoteAddr(), request.getHeader("X-Forwarded-For"));
+    }
 }
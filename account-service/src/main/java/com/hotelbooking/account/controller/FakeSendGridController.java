@@ -0,0 +1,74 @@
+package com.hotelbooking.account.controller;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Local stand-in for the SendGrid v3 mail API, for tests and development.
+ * Enable with the fake-sendgrid profile and point the client at this service:
+ * sendgrid.host=localhost:3002, sendgrid.use-http=true.
+ * Failure rate and latency are configurable to exercise retries and the circuit breaker.
+ */
+@RestController
+@Profile("fake-sendgrid")
+public class FakeSendGridController {
+
+    private final Deque<String> received = new ArrayDeque<>();
+
+    @Value("${fake-sendgrid.max-kept:1000}")
+    private int maxKept;
+
+    @Value("${fake-sendgrid.failure-rate:0}")
+    private double failureRate;
+
+    @Value("${fake-sendgrid.latency-ms:0}")
+    private long latencyMs;
+
+    @PostMapping("/v3/mail/send")
+    public ResponseEntity<String> send(@RequestBody String mail) throws InterruptedException {
+        if (latencyMs > 0) {
+            Thread.sleep(latencyMs);
+        }
+        if (failureRate > 0 && ThreadLocalRandom.current().nextDouble() < failureRate) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body("{\"errors\":[{\"message\":\"fake outage\"}]}");
+        }
+        synchronized (received) {
+            received.addLast(mail);
+            while (received.size() > maxKept) {
+                received.removeFirst();
+            }
+        }
+        return ResponseEntity.status(HttpStatus.ACCEPTED).build();
+    }
+
+    /**
+     * Request bodies accepted so far, oldest first
+     */
+    @GetMapping("/fake-sendgrid/messages")
+    public List<String> messages() {
+        synchronized (received) {
+            return new ArrayList<>(received);
+        }
+    }
+
+    @DeleteMapping("/fake-sendgrid/messages")
+    public ResponseEntity<Void> clear() {
+        synchronized (received) {
+            received.clear();
+        }
+        return ResponseEntity.noContent().build();
+    }
+}
@@ -0,0 +1,9 @@
+package com.hotelbooking.account.dto;
+
+import java.util.UUID;
+
+/**
+ * The few account columns a bulk notification needs per recipient
+ */
+public record NotificationRecipient(UUID id, String email, String username) {
+}
@@ -8,6 +8,10 @@ public class PaginationDTO {
     public String search;
     public String sortBy;
     public String sortDirection;
+    // Continuation token from a previous page; when set, pageNumber is informational only
+    public String cursor;
+    // Whether to run the COUNT query; skipping it keeps every page as cheap as the first
+    public boolean includeTotal = true;
 
     public PaginationDTO(int pageNumber, int pageSize, String search, String sortBy, String sortDirection) {
         this.pageNumber = pageNumber;
@@ -16,4 +20,11 @@ public class PaginationDTO {
         this.sortBy = sortBy;
         this.sortDirection = sortDirection;
     }
+
+    public PaginationDTO(int pageNumber, int pageSize, String search, String sortBy, String sortDirection,
+                         String cursor, boolean includeTotal) {
+        this(pageNumber, pageSize, search, sortBy, sortDirection);
+        this.cursor = cursor;
+        this.includeTotal = includeTotal;
+    }
 }
@@ -9,4 +9,9 @@ public class UpdateAccountDTO {
     private String phone;
     
     private String imageUrl;
+
+    // Optional; left unchanged when null
+    private String role;
+
+    private Boolean isActive;
 }
@@ -1,6 +1,7 @@
 package com.hotelbooking.account.entity;
 
 import com.hotelbooking.account.enums.RoleType;
+import com.hotelbooking.account.search.AccountSearchIndexListener;
 import jakarta.persistence.*;
 import lombok.*;
 
@@ -8,11 +9,19 @@ import java.time.OffsetDateTime;
 import java.util.UUID;
 
 @Entity
+@EntityListeners(AccountSearchIndexListener.class)
 @Getter
 @Setter
 @ToString
 @RequiredArgsConstructor
-@Table(name = "accounts")
+@Table(name = "accounts", indexes = {
+    // Keyset pagination seeks on (created_at, id); username and email are already unique-indexed
+    @Index(name = "idx_accounts_created_at_id", columnList = "createdAt, id"),
+    // Bulk notifications walk one role in id order
+    @Index(name = "idx_accounts_role_id", columnList = "role, id"),
+    // Search index replicas pull recent changes by this column
+    @Index(name = "idx_accounts_updated_at", columnList = "updatedAt")
+})
 public class Account {
     @Id
     @GeneratedValue(strategy = GenerationType.UUID)
@@ -52,13 +61,25 @@ public class Account {
     @Column
     private OffsetDateTime passwordResetTokenExpiresAt; // Password reset token expiration
 
+    @Column
+    private OffsetDateTime tokensRevokedAt; // Tokens issued at or before this instant are no longer accepted
+
     @Column(nullable = false)
     private OffsetDateTime createdAt;
 
     private OffsetDateTime deletedAt;
 
+    @Column
+    private OffsetDateTime updatedAt; // Null for rows last written before the column existed
+
     @PrePersist
     public void onCreate() {
         this.createdAt = OffsetDateTime.now();
+        this.updatedAt = this.createdAt;
+    }
+
+    @PreUpdate
+    public void onUpdate() {
+        this.updatedAt = OffsetDateTime.now();
     }
 }
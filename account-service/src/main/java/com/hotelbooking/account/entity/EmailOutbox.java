@@ -0,0 +1,72 @@
+package com.hotelbooking.account.entity;
+
+import com.hotelbooking.account.enums.EmailOutboxStatus;
+import com.hotelbooking.account.enums.EmailType;
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.OffsetDateTime;
+import java.util.UUID;
+
+/**
+ * Email waiting to be sent. Written in the same transaction as the account change that
+ * triggers it, then delivered by the outbox dispatcher; the request never waits on SendGrid.
+ */
+@Entity
+@Getter
+@Setter
+@ToString
+@RequiredArgsConstructor
+@Table(name = "email_outbox", indexes = {
+    @Index(name = "idx_email_outbox_status_next_attempt", columnList = "status, nextAttemptAt")
+})
+public class EmailOutbox {
+    @Id
+    @GeneratedValue(strategy = GenerationType.UUID)
+    private UUID id;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 20)
+    private EmailType type;
+
+    @Column(nullable = false, length = 150)
+    private String recipient;
+
+    @Column(nullable = false, length = 100)
+    private String username;
+
+    // Verification or reset token the email links to, if any
+    @ToString.Exclude
+    @Column(length = 255)
+    private String token;
+
+    // Language tag of the template variant to use; null for the default
+    @Column(length = 16)
+    private String locale;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 20)
+    private EmailOutboxStatus status = EmailOutboxStatus.PENDING;
+
+    @Column(nullable = false)
+    private int attempts;
+
+    @Column(nullable = false)
+    private OffsetDateTime nextAttemptAt;
+
+    @Column(length = 500)
+    private String lastError;
+
+    @Column(nullable = false)
+    private OffsetDateTime createdAt;
+
+    private OffsetDateTime sentAt;
+
+    @PrePersist
+    public void onCreate() {
+        this.createdAt = OffsetDateTime.now();
+        if (this.nextAttemptAt == null) {
+            this.nextAttemptAt = this.createdAt;
+        }
+    }
+}
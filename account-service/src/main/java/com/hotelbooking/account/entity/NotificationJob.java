@@ -0,0 +1,74 @@
+package com.hotelbooking.account.entity;
+
+import com.hotelbooking.account.enums.NotificationJobStatus;
+import com.hotelbooking.account.enums.RoleType;
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.OffsetDateTime;
+import java.util.UUID;
+
+/**
+ * Bulk notification to every active account with a role.
+ * Recipients are processed in account id order; lastAccountId is the checkpoint a resumed job
+ * continues after.
+ */
+@Entity
+@Getter
+@Setter
+@ToString
+@RequiredArgsConstructor
+@Table(name = "notification_jobs")
+public class NotificationJob {
+    @Id
+    @GeneratedValue(strategy = GenerationType.UUID)
+    private UUID id;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 20)
+    private RoleType role;
+
+    @Column(nullable = false, length = 255)
+    private String subject;
+
+    @ToString.Exclude
+    @Lob
+    @Column(nullable = false, columnDefinition = "TEXT")
+    private String htmlContent;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 20)
+    private NotificationJobStatus status = NotificationJobStatus.RUNNING;
+
+    private UUID lastAccountId;
+
+    @Column(nullable = false)
+    private long recipientsSent;
+
+    @Column(nullable = false)
+    private int batchesSent;
+
+    // Recipients SendGrid rejected on their own; the job carries on without them
+    @Column(nullable = false)
+    private long recipientsSkipped;
+
+    @Column(length = 500)
+    private String lastError;
+
+    @Column(nullable = false)
+    private OffsetDateTime createdAt;
+
+    @Column(nullable = false)
+    private OffsetDateTime updatedAt;
+
+    @PrePersist
+    public void onCreate() {
+        this.createdAt = OffsetDateTime.now();
+        this.updatedAt = this.createdAt;
+    }
+
+    @PreUpdate
+    public void onUpdate() {
+        this.updatedAt = OffsetDateTime.now();
+    }
+}
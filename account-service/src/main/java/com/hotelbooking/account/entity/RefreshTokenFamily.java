@@ -0,0 +1,38 @@
+package com.hotelbooking.account.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.OffsetDateTime;
+import java.util.UUID;
+
+/**
+ * One login session. No token is stored: tokens are signed with the family id and generation,
+ * and every rotation bumps the generation in place.
+ */
+@Entity
+@Getter
+@Setter
+@ToString
+@RequiredArgsConstructor
+@Table(name = "refresh_token_families", indexes = {
+    @Index(name = "idx_refresh_token_families_user_id", columnList = "userId"),
+    @Index(name = "idx_refresh_token_families_expires_at", columnList = "expiresAt")
+})
+public class RefreshTokenFamily {
+    @Id
+    private UUID familyId;
+
+    // Generation of the only token that may still be used; a genuine token of an older one was replayed
+    @Column(nullable = false)
+    private long generation;
+
+    @Column(nullable = false)
+    private UUID userId;
+
+    @Column(nullable = false)
+    private OffsetDateTime issuedAt;
+
+    @Column(nullable = false)
+    private OffsetDateTime expiresAt;
+}
@@ -0,0 +1,30 @@
+package com.hotelbooking.account.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.OffsetDateTime;
+
+/**
+ * Lease row used to keep a scheduled job from running on several replicas at once
+ */
+@Entity
+@Getter
+@Setter
+@ToString
+@RequiredArgsConstructor
+@Table(name = "scheduler_locks")
+public class SchedulerLock {
+    @Id
+    @Column(length = 64)
+    private String name;
+
+    @Column(nullable = false)
+    private OffsetDateTime lockedUntil;
+
+    @Column(nullable = false)
+    private OffsetDateTime lockedAt;
+
+    @Column(nullable = false, length = 255)
+    private String lockedBy;
+}
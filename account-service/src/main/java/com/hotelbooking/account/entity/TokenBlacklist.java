@@ -11,14 +11,22 @@ import java.util.UUID;
 @Setter
 @ToString
 @RequiredArgsConstructor
-@Table(name = "token_blacklist")
+@Table(name = "token_blacklist", uniqueConstraints = {
+    // Named so ddl-auto recognises the key created by V1__Token_blacklist_token_id
+    @UniqueConstraint(name = "uk_token_blacklist_token_id", columnNames = "tokenId")
+}, indexes = {
+    @Index(name = "idx_token_blacklist_expires_at", columnList = "expiresAt"),
+    // Incremental index sync between replicas
+    @Index(name = "idx_token_blacklist_blacklisted_at", columnList = "blacklistedAt")
+})
 public class TokenBlacklist {
     @Id
     @GeneratedValue(strategy = GenerationType.UUID)
     private UUID id;
 
-    @Column(nullable = false, unique = true, columnDefinition = "TEXT")
-    private String jwtToken;
+    // jti claim of the token, or the SHA-256 hex digest for tokens issued without one
+    @Column(nullable = false, length = 64)
+    private String tokenId;
 
     @Column(nullable = false)
     private OffsetDateTime expiresAt;
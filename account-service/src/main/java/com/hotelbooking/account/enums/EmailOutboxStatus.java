@@ -0,0 +1,7 @@
+package com.hotelbooking.account.enums;
+
+public enum EmailOutboxStatus {
+    PENDING, // Waiting for the dispatcher, possibly after a failed attempt
+    SENT,
+    FAILED   // Gave up: permanent error or out of attempts
+}
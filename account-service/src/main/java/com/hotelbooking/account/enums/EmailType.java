@@ -0,0 +1,7 @@
+package com.hotelbooking.account.enums;
+
+public enum EmailType {
+    VERIFICATION,   // Xác thực email sau khi đăng ký
+    PASSWORD_RESET, // Đặt lại mật khẩu
+    WELCOME         // Chào mừng sau khi xác thực
+}
@@ -0,0 +1,8 @@
+package com.hotelbooking.account.enums;
+
+public enum NotificationJobStatus {
+    RUNNING,
+    COMPLETED,
+    FAILED,   // Resumable from the last checkpoint
+    CANCELLED // Progress stream closed by the caller; resumable
+}
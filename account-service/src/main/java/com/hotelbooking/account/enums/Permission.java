@@ -0,0 +1,104 @@
+package com.hotelbooking.account.enums;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Every permission known to the system. The ordinal is the bit position in permission masks,
+ * so new permissions must be appended at the end and existing ones never reordered.
+ * At most 64 permissions fit in a mask.
+ */
+public enum Permission {
+    // Admin: account management
+    MANAGE_ACCOUNTS, VIEW_ALL_ACCOUNTS, CREATE_ACCOUNT, UPDATE_ACCOUNT, DELETE_ACCOUNT,
+
+    // Admin: role management
+    MANAGE_ROLES, VIEW_ROLES, CREATE_ROLE, UPDATE_ROLE, DELETE_ROLE,
+
+    // Admin: system administration
+    SYSTEM_CONFIG, VIEW_LOGS, MANAGE_SYSTEM,
+
+    // Admin: bookings and payments
+    VIEW_ALL_BOOKINGS, MANAGE_BOOKINGS, CANCEL_ANY_BOOKING,
+    VIEW_ALL_PAYMENTS, MANAGE_PAYMENTS, PROCESS_REFUNDS,
+    ADMIN_BOOKING_SERVICE, ADMIN_PAYMENT_SERVICE,
+
+    // Staff
+    VIEW_CUSTOMER_ACCOUNTS, UPDATE_CUSTOMER_ACCOUNT,
+    VIEW_BOOKINGS, CREATE_BOOKING, UPDATE_BOOKING, CANCEL_BOOKING,
+    VIEW_PAYMENTS, PROCESS_PAYMENT,
+    STAFF_BOOKING_SERVICE,
+
+    // User
+    VIEW_OWN_ACCOUNT, UPDATE_OWN_ACCOUNT,
+    VIEW_OWN_BOOKINGS, CREATE_OWN_BOOKING, UPDATE_OWN_BOOKING, CANCEL_OWN_BOOKING,
+    VIEW_OWN_PAYMENTS, MAKE_PAYMENT,
+    USER_BOOKING_SERVICE, USER_PAYMENT_SERVICE;
+
+    /**
+     * Version of the bit layout above, carried alongside compact permission claims.
+     * Bump it if permissions are ever removed or reordered.
+     */
+    public static final int MASK_VERSION = 1;
+
+    private static final Map<String, Permission> BY_NAME = new HashMap<>();
+
+    static {
+        if (values().length > Long.SIZE) {
+            throw new IllegalStateException("Permission masks hold at most 64 permissions");
+        }
+        for (Permission permission : values()) {
+            BY_NAME.put(permission.name(), permission);
+        }
+    }
+
+    private final long mask = 1L << ordinal();
+
+    public long mask() {
+        return mask;
+    }
+
+    /**
+     * Look up a permission by name, or null if there is none
+     */
+    public static Permission fromName(String name) {
+        return BY_NAME.get(name);
+    }
+
+    /**
+     * OR the masks of the given permission names. Unknown names are rejected so a typo in an
+     * annotation fails loudly instead of silently denying access.
+     */
+    public static long maskOf(Iterable<String> names) {
+        long mask = 0L;
+        for (String name : names) {
+            Permission permission = fromName(name);
+            if (permission == null) {
+                throw new IllegalArgumentException("Unknown permission: " + name);
+            }
+            mask |= permission.mask;
+        }
+        return mask;
+    }
+
+    public static long maskOf(String... names) {
+        return maskOf(Arrays.asList(names));
+    }
+
+    /**
+     * Expand a mask back into permission names
+     */
+    public static Set<String> namesOf(long mask) {
+        Set<String> names = new HashSet<>();
+        for (Permission permission : values()) {
+            if ((mask & permission.mask) != 0) {
+                names.add(permission.name());
+            }
+        }
+        return Collections.unmodifiableSet(names);
+    }
+}
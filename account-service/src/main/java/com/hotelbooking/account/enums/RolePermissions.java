@@ -52,19 +52,30 @@ public enum RolePermissions {
     ));
 
     private final Set<String> permissions;
+    private final long permissionMask;
 
     RolePermissions(Set<String> permissions) {
         this.permissions = permissions;
+        this.permissionMask = Permission.maskOf(permissions);
     }
 
     public Set<String> getPermissions() {
         return permissions;
     }
 
+    // One bit per Permission ordinal
+    public long getPermissionMask() {
+        return permissionMask;
+    }
+
     public boolean hasPermission(String permission) {
         return permissions.contains(permission);
     }
 
+    public static RolePermissions of(RoleType roleType) {
+        return valueOf(roleType.name());
+    }
+
     // Utility method để lấy permissions theo role name
     public static Set<String> getPermissionsByRoleName(String roleName) {
         try {
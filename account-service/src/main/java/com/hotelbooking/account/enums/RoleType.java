@@ -20,4 +20,9 @@ public enum RoleType {
     public String getDescription() {
         return description;
     }
+
+    // One bit per role, for role checks against a precomputed set of allowed roles
+    public int mask() {
+        return 1 << ordinal();
+    }
 }
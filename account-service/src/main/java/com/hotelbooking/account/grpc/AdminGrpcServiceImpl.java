@@ -4,18 +4,29 @@ import com.hotelbooking.account.dto.AccountDTO;
 import com.hotelbooking.account.dto.CreateAccountDTO;
 import com.hotelbooking.account.dto.PaginationDTO;
 import com.hotelbooking.account.dto.UpdateAccountDTO;
+import com.hotelbooking.account.entity.NotificationJob;
 import com.hotelbooking.account.grpc.*;
 import com.hotelbooking.account.enums.RoleType;
 import com.hotelbooking.account.response.PaginationResponse;
+import com.hotelbooking.account.security.RequirePermission;
+import com.hotelbooking.account.service.AccountExportService;
 import com.hotelbooking.account.service.AdminUserService;
+import com.hotelbooking.account.service.BulkNotificationService;
+import com.hotelbooking.account.service.ExportCapacityExceededException;
 import io.grpc.Status;
+import io.grpc.stub.ServerCallStreamObserver;
 import io.grpc.stub.StreamObserver;
 import lombok.RequiredArgsConstructor;
 import net.devh.boot.grpc.server.service.GrpcService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Sort;
 
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.RejectedExecutionException;
 
 @GrpcService
 public class AdminGrpcServiceImpl extends AdminServiceGrpc.AdminServiceImplBase {
@@ -23,12 +34,22 @@ public class AdminGrpcServiceImpl extends AdminServiceGrpc.AdminServiceImplBase
     private static final Logger logger = LoggerFactory.getLogger(AdminGrpcServiceImpl.class);
 
     private final AdminUserService adminUserService;
+    private final AccountExportService accountExportService;
+    private final BulkNotificationService bulkNotificationService;
 
-    public AdminGrpcServiceImpl(AdminUserService adminUserService) {
+    @Value("${admin.export.client-ready-timeout-ms:30000}")
+    private long clientReadyTimeoutMs;
+
+    public AdminGrpcServiceImpl(AdminUserService adminUserService,
+                                AccountExportService accountExportService,
+                                BulkNotificationService bulkNotificationService) {
         this.adminUserService = adminUserService;
+        this.accountExportService = accountExportService;
+        this.bulkNotificationService = bulkNotificationService;
     }
 
     @Override
+    @RequirePermission({"MANAGE_ACCOUNTS", "VIEW_ALL_ACCOUNTS"})
     public void listUsers(ListUsersRequest request, StreamObserver<ListUsersResponse> responseObserver) {
         try {
             int pageNumber = request.getPageNumber() > 0 ? request.getPageNumber() : 1;
@@ -36,8 +57,11 @@ public class AdminGrpcServiceImpl extends AdminServiceGrpc.AdminServiceImplBase
             String sortBy = !request.getSortBy().isEmpty() ? request.getSortBy() : "createdAt";
             String sortDirection = !request.getSortDirection().isEmpty() ? request.getSortDirection() : "desc";
             String search = request.getSearch();
+            String cursor = request.getCursor();
+            boolean includeTotal = request.hasIncludeTotal() ? request.getIncludeTotal() : cursor.isEmpty();
 
-            PaginationDTO paginationDTO = new PaginationDTO(pageNumber, pageSize, search, sortBy, sortDirection);
+            PaginationDTO paginationDTO = new PaginationDTO(pageNumber, pageSize, search, sortBy, sortDirection,
+                cursor, includeTotal);
             PaginationResponse<AccountDTO> users = adminUserService.getUsers(paginationDTO);
 
             ListUsersResponse.Builder builder = ListUsersResponse.newBuilder()
@@ -46,12 +70,15 @@ public class AdminGrpcServiceImpl extends AdminServiceGrpc.AdminServiceImplBase
                     .setMessage("Users retrieved successfully")
                     .setStatusCode(200)
                     .build())
-                .setTotalCount(users.getTotalCount())
-                .setPageNumber(users.getPageNumber())
-                .setPageSize(users.getPageSize())
-                .setTotalPages(users.getTotalPages());
+                .setTotalCount(users.getPaging().getTotal())
+                .setPageNumber(users.getPaging().getPageNumber())
+                .setPageSize(users.getPaging().getPageSize())
+                .setTotalPages(users.getPaging().getTotalPages());
+            if (users.getPaging().getNextCursor() != null) {
+                builder.setNextCursor(users.getPaging().getNextCursor());
+            }
 
-            for (AccountDTO account : users.getData()) {
+            for (AccountDTO account : users.getItems()) {
                 builder.addUsers(mapAccountDTOToUser(account));
             }
 
@@ -66,6 +93,7 @@ public class AdminGrpcServiceImpl extends AdminServiceGrpc.AdminServiceImplBase
     }
 
     @Override
+    @RequirePermission({"MANAGE_ACCOUNTS", "VIEW_ALL_ACCOUNTS"})
     public void getUsersByRole(GetUsersByRoleRequest request, StreamObserver<ListUsersResponse> responseObserver) {
         try {
             if (request.getRoleName().isEmpty()) {
@@ -80,8 +108,11 @@ public class AdminGrpcServiceImpl extends AdminServiceGrpc.AdminServiceImplBase
             String sortBy = !request.getSortBy().isEmpty() ? request.getSortBy() : "createdAt";
             String sortDirection = !request.getSortDirection().isEmpty() ? request.getSortDirection() : "desc";
             String search = request.getSearch();
+            String cursor = request.getCursor();
+            boolean includeTotal = request.hasIncludeTotal() ? request.getIncludeTotal() : cursor.isEmpty();
 
-            PaginationDTO paginationDTO = new PaginationDTO(pageNumber, pageSize, search, sortBy, sortDirection);
+            PaginationDTO paginationDTO = new PaginationDTO(pageNumber, pageSize, search, sortBy, sortDirection,
+                cursor, includeTotal);
             PaginationResponse<AccountDTO> users = adminUserService.getUsersByRole(paginationDTO, request.getRoleName());
 
             ListUsersResponse.Builder builder = ListUsersResponse.newBuilder()
@@ -90,12 +121,15 @@ public class AdminGrpcServiceImpl extends AdminServiceGrpc.AdminServiceImplBase
                     .setMessage("Users retrieved successfully")
                     .setStatusCode(200)
                     .build())
-                .setTotalCount(users.getTotalCount())
-                .setPageNumber(users.getPageNumber())
-                .setPageSize(users.getPageSize())
-                .setTotalPages(users.getTotalPages());
+                .setTotalCount(users.getPaging().getTotal())
+                .setPageNumber(users.getPaging().getPageNumber())
+                .setPageSize(users.getPaging().getPageSize())
+                .setTotalPages(users.getPaging().getTotalPages());
+            if (users.getPaging().getNextCursor() != null) {
+                builder.setNextCursor(users.getPaging().getNextCursor());
+            }
 
-            for (AccountDTO account : users.getData()) {
+            for (AccountDTO account : users.getItems()) {
                 builder.addUsers(mapAccountDTOToUser(account));
             }
 
@@ -110,6 +144,7 @@ public class AdminGrpcServiceImpl extends AdminServiceGrpc.AdminServiceImplBase
     }
 
     @Override
+    @RequirePermission({"MANAGE_ACCOUNTS", "VIEW_ALL_ACCOUNTS"})
     public void getAvailableRoles(GetAvailableRolesRequest request, StreamObserver<GetAvailableRolesResponse> responseObserver) {
         try {
             GetAvailableRolesResponse.Builder builder = GetAvailableRolesResponse.newBuilder()
@@ -134,6 +169,7 @@ public class AdminGrpcServiceImpl extends AdminServiceGrpc.AdminServiceImplBase
     }
 
     @Override
+    @RequirePermission({"MANAGE_ACCOUNTS", "VIEW_ALL_ACCOUNTS"})
     public void createUser(CreateUserRequest request, StreamObserver<CreateUserResponse> responseObserver) {
         try {
             if (request.getUsername().isEmpty() || request.getEmail().isEmpty() || 
@@ -174,6 +210,7 @@ public class AdminGrpcServiceImpl extends AdminServiceGrpc.AdminServiceImplBase
     }
 
     @Override
+    @RequirePermission({"MANAGE_ACCOUNTS", "VIEW_ALL_ACCOUNTS"})
     public void updateUser(UpdateUserRequest request, StreamObserver<UpdateUserResponse> responseObserver) {
         try {
             if (request.getUserId().isEmpty()) {
@@ -186,6 +223,12 @@ public class AdminGrpcServiceImpl extends AdminServiceGrpc.AdminServiceImplBase
             UpdateAccountDTO dto = new UpdateAccountDTO();
             dto.setPhone(request.getPhone());
             dto.setImageUrl(request.getImageUrl());
+            if (request.hasRole()) {
+                dto.setRole(request.getRole());
+            }
+            if (request.hasIsActive()) {
+                dto.setIsActive(request.getIsActive());
+            }
 
             AccountDTO updatedUser = adminUserService.updateAccount(UUID.fromString(request.getUserId()), dto);
 
@@ -209,6 +252,7 @@ public class AdminGrpcServiceImpl extends AdminServiceGrpc.AdminServiceImplBase
     }
 
     @Override
+    @RequirePermission({"MANAGE_ACCOUNTS", "VIEW_ALL_ACCOUNTS"})
     public void deleteUser(DeleteUserRequest request, StreamObserver<DeleteUserResponse> responseObserver) {
         try {
             if (request.getUserId().isEmpty()) {
@@ -238,6 +282,116 @@ public class AdminGrpcServiceImpl extends AdminServiceGrpc.AdminServiceImplBase
         }
     }
 
+    @Override
+    @RequirePermission({"MANAGE_ACCOUNTS", "VIEW_ALL_ACCOUNTS"})
+    public void streamUsers(StreamUsersRequest request, StreamObserver<User> responseObserver) {
+        RoleType role;
+        Sort sort;
+        try {
+            role = !request.getRoleName().isEmpty() ? RoleType.valueOf(request.getRoleName().toUpperCase()) : null;
+            String sortBy = !request.getSortBy().isEmpty() ? request.getSortBy() : "createdAt";
+            String sortDirection = !request.getSortDirection().isEmpty() ? request.getSortDirection() : "desc";
+            sort = Sort.by(Sort.Direction.fromString(sortDirection), sortBy);
+        } catch (IllegalArgumentException e) {
+            responseObserver.onError(Status.INVALID_ARGUMENT
+                .withDescription(e.getMessage())
+                .asException());
+            return;
+        }
+
+        FlowControlledSender<User> sender = newSender(responseObserver);
+        try {
+            accountExportService
+                .streamUsers(role, request.getSearch(), sort, account -> sender.send(mapAccountDTOToUser(account)))
+                .whenComplete((count, error) -> finishStream(sender, "streaming users", count, error));
+        } catch (ExportCapacityExceededException e) {
+            sender.fail(Status.RESOURCE_EXHAUSTED.withDescription(e.getMessage()));
+        }
+    }
+
+    @Override
+    @RequirePermission({"MANAGE_ACCOUNTS", "VIEW_ALL_ACCOUNTS"})
+    public void exportUsers(ExportUsersRequest request, StreamObserver<User> responseObserver) {
+        FlowControlledSender<User> sender = newSender(responseObserver);
+        try {
+            accountExportService
+                .exportUsers(request.getIncludeDeleted(), account -> sender.send(mapAccountDTOToUser(account)))
+                .whenComplete((count, error) -> finishStream(sender, "exporting users", count, error));
+        } catch (ExportCapacityExceededException e) {
+            sender.fail(Status.RESOURCE_EXHAUSTED.withDescription(e.getMessage()));
+        }
+    }
+
+    @Override
+    @RequirePermission("MANAGE_ACCOUNTS")
+    public void sendBulkNotification(BulkNotificationRequest request,
+                                     StreamObserver<BulkNotificationProgress> responseObserver) {
+        FlowControlledSender<BulkNotificationProgress> sender = new FlowControlledSender<>(
+            (ServerCallStreamObserver<BulkNotificationProgress>) responseObserver, clientReadyTimeoutMs);
+        CompletableFuture<NotificationJob> job;
+        try {
+            if (!request.getJobId().isEmpty()) {
+                job = bulkNotificationService.resume(UUID.fromString(request.getJobId()),
+                    progress -> sender.send(mapNotificationProgress(progress)));
+            } else {
+                RoleType role = !request.getRoleName().isEmpty() ? RoleType.valueOf(request.getRoleName().toUpperCase()) : null;
+                job = bulkNotificationService.start(role, request.getSubject(), request.getHtmlContent(),
+                    progress -> sender.send(mapNotificationProgress(progress)));
+            }
+        } catch (IllegalArgumentException e) {
+            sender.fail(Status.INVALID_ARGUMENT.withDescription(e.getMessage()));
+            return;
+        } catch (RejectedExecutionException e) {
+            sender.fail(Status.RESOURCE_EXHAUSTED.withDescription("A bulk notification is already running, please try again later"));
+            return;
+        }
+
+        // The job's own outcome (completed, failed, cancelled) is carried by the last progress message
+        job.whenComplete((result, error) -> {
+            if (error == null) {
+                sender.complete();
+                return;
+            }
+            Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+            if (cause instanceof IllegalArgumentException) {
+                sender.fail(Status.NOT_FOUND.withDescription(cause.getMessage()));
+            } else if (cause instanceof IllegalStateException) {
+                sender.fail(Status.FAILED_PRECONDITION.withDescription(cause.getMessage()));
+            } else {
+                logger.error("Error sending bulk notification", cause);
+                sender.fail(Status.INTERNAL.withDescription(cause.getMessage()));
+            }
+        });
+    }
+
+    private FlowControlledSender<User> newSender(StreamObserver<User> responseObserver) {
+        return new FlowControlledSender<>((ServerCallStreamObserver<User>) responseObserver, clientReadyTimeoutMs);
+    }
+
+    private void finishStream(FlowControlledSender<User> sender, String operation, Long count, Throwable error) {
+        if (error == null) {
+            logger.info("Finished {}: {} accounts sent", operation, count);
+            sender.complete();
+            return;
+        }
+        Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+        logger.error("Error {}", operation, cause);
+        Status status = Status.fromThrowable(cause);
+        sender.fail(status.getCode() != Status.Code.UNKNOWN ? status : Status.INTERNAL.withDescription(cause.getMessage()));
+    }
+
+    private BulkNotificationProgress mapNotificationProgress(NotificationJob job) {
+        return BulkNotificationProgress.newBuilder()
+            .setJobId(job.getId().toString())
+            .setStatus(job.getStatus().name())
+            .setRecipientsSent(job.getRecipientsSent())
+            .setBatchesSent(job.getBatchesSent())
+            .setRecipientsSkipped(job.getRecipientsSkipped())
+            .setLastAccountId(job.getLastAccountId() != null ? job.getLastAccountId().toString() : "")
+            .setMessage(job.getLastError() != null ? job.getLastError() : "")
+            .build();
+    }
+
     private User mapAccountDTOToUser(AccountDTO account) {
         return User.newBuilder()
             .setId(account.getId().toString())
@@ -2,9 +2,11 @@ package com.hotelbooking.account.grpc;
 
 import com.hotelbooking.account.dto.*;
 import com.hotelbooking.account.grpc.*;
+import com.hotelbooking.account.security.LoginThrottledException;
+import com.hotelbooking.account.security.PublicRpc;
 import com.hotelbooking.account.service.AuthService;
 import com.hotelbooking.account.service.BlacklistTokenService;
-import com.hotelbooking.account.service.EmailService;
+import com.hotelbooking.account.service.PasswordHashingBusyException;
 import io.grpc.Status;
 import io.grpc.stub.StreamObserver;
 import net.devh.boot.grpc.server.service.GrpcService;
@@ -21,20 +23,18 @@ public class AuthGrpcServiceImpl extends AuthServiceGrpc.AuthServiceImplBase {
 
     private final AuthService authService;
     private final BlacklistTokenService blacklistTokenService;
-    private final EmailService emailService;
     private final PasswordEncoder passwordEncoder;
 
     public AuthGrpcServiceImpl(AuthService authService,
                               BlacklistTokenService blacklistTokenService,
-                              EmailService emailService,
                               PasswordEncoder passwordEncoder) {
         this.authService = authService;
         this.blacklistTokenService = blacklistTokenService;
-        this.emailService = emailService;
         this.passwordEncoder = passwordEncoder;
     }
 
     @Override
+    @PublicRpc
     public void login(LoginRequest request, StreamObserver<LoginResponse> responseObserver) {
         try {
             if (request.getEmail().isEmpty() || request.getPassword().isEmpty()) {
@@ -44,7 +44,8 @@ public class AuthGrpcServiceImpl extends AuthServiceGrpc.AuthServiceImplBase {
                 return;
             }
 
-            AuthResponse authResponse = authService.login(request.getEmail(), request.getPassword());
+            AuthResponse authResponse = authService.login(request.getEmail(), request.getPassword(),
+                GrpcContextKeys.CLIENT_ADDRESS.get());
             
             LoginResponse response = LoginResponse.newBuilder()
                 .setApiResponse(ApiResponse.newBuilder()
@@ -59,6 +60,15 @@ public class AuthGrpcServiceImpl extends AuthServiceGrpc.AuthServiceImplBase {
             
             responseObserver.onNext(response);
             responseObserver.onCompleted();
+        } catch (LoginThrottledException e) {
+            responseObserver.onError(Status.RESOURCE_EXHAUSTED
+                .withDescription(e.getMessage())
+                .asException());
+        } catch (PasswordHashingBusyException e) {
+            logger.warn("Password hashing pool saturated, rejecting login");
+            responseObserver.onError(Status.RESOURCE_EXHAUSTED
+                .withDescription(e.getMessage())
+                .asException());
         } catch (Exception e) {
             logger.error("Error during login", e);
             responseObserver.onError(Status.UNAUTHENTICATED
@@ -68,6 +78,7 @@ public class AuthGrpcServiceImpl extends AuthServiceGrpc.AuthServiceImplBase {
     }
 
     @Override
+    @PublicRpc
     public void register(RegisterRequest request, StreamObserver<RegisterResponse> responseObserver) {
         try {
             if (request.getUsername().isEmpty() || request.getEmail().isEmpty() || 
@@ -105,6 +116,11 @@ public class AuthGrpcServiceImpl extends AuthServiceGrpc.AuthServiceImplBase {
 
             responseObserver.onNext(response);
             responseObserver.onCompleted();
+        } catch (PasswordHashingBusyException e) {
+            logger.warn("Password hashing pool saturated, rejecting register");
+            responseObserver.onError(Status.RESOURCE_EXHAUSTED
+                .withDescription(e.getMessage())
+                .asException());
         } catch (Exception e) {
             logger.error("Error during registration", e);
             responseObserver.onError(Status.INVALID_ARGUMENT
@@ -114,6 +130,7 @@ public class AuthGrpcServiceImpl extends AuthServiceGrpc.AuthServiceImplBase {
     }
 
     @Override
+    @PublicRpc
     public void refreshToken(RefreshTokenRequest request, StreamObserver<RefreshTokenResponse> responseObserver) {
         try {
             if (request.getRefreshToken().isEmpty()) {
@@ -176,6 +193,7 @@ public class AuthGrpcServiceImpl extends AuthServiceGrpc.AuthServiceImplBase {
     }
 
     @Override
+    @PublicRpc
     public void verifyEmail(VerifyEmailRequest request, StreamObserver<VerifyEmailResponse> responseObserver) {
         try {
             if (request.getToken().isEmpty()) {
@@ -185,8 +203,8 @@ public class AuthGrpcServiceImpl extends AuthServiceGrpc.AuthServiceImplBase {
                 return;
             }
 
+            // The welcome email is queued by verifyEmail itself
             AccountDTO account = authService.verifyEmail(request.getToken());
-            emailService.sendWelcomeEmail(account.getEmail(), account.getUsername());
 
             VerifyEmailResponse response = VerifyEmailResponse.newBuilder()
                 .setApiResponse(ApiResponse.newBuilder()
@@ -208,6 +226,7 @@ public class AuthGrpcServiceImpl extends AuthServiceGrpc.AuthServiceImplBase {
     }
 
     @Override
+    @PublicRpc
     public void resendVerificationEmail(ResendVerificationRequest request, StreamObserver<ResendVerificationResponse> responseObserver) {
         try {
             if (request.getEmail().isEmpty()) {
@@ -339,6 +358,11 @@ public class AuthGrpcServiceImpl extends AuthServiceGrpc.AuthServiceImplBase {
 
             responseObserver.onNext(response);
             responseObserver.onCompleted();
+        } catch (PasswordHashingBusyException e) {
+            logger.warn("Password hashing pool saturated, rejecting changePassword");
+            responseObserver.onError(Status.RESOURCE_EXHAUSTED
+                .withDescription(e.getMessage())
+                .asException());
         } catch (Exception e) {
             logger.error("Error changing password", e);
             responseObserver.onError(Status.INVALID_ARGUMENT
@@ -348,6 +372,7 @@ public class AuthGrpcServiceImpl extends AuthServiceGrpc.AuthServiceImplBase {
     }
 
     @Override
+    @PublicRpc
     public void forgotPassword(ForgotPasswordRequest request, StreamObserver<ForgotPasswordResponse> responseObserver) {
         try {
             if (request.getEmail().isEmpty()) {
@@ -381,6 +406,7 @@ public class AuthGrpcServiceImpl extends AuthServiceGrpc.AuthServiceImplBase {
     }
 
     @Override
+    @PublicRpc
     public void resetPassword(ResetPasswordRequest request, StreamObserver<ResetPasswordResponse> responseObserver) {
         try {
             if (request.getToken().isEmpty() || request.getNewPassword().isEmpty()) {
@@ -414,6 +440,11 @@ public class AuthGrpcServiceImpl extends AuthServiceGrpc.AuthServiceImplBase {
 
             responseObserver.onNext(response);
             responseObserver.onCompleted();
+        } catch (PasswordHashingBusyException e) {
+            logger.warn("Password hashing pool saturated, rejecting resetPassword");
+            responseObserver.onError(Status.RESOURCE_EXHAUSTED
+                .withDescription(e.getMessage())
+                .asException());
         } catch (Exception e) {
             logger.error("Error resetting password", e);
             responseObserver.onError(Status.INVALID_ARGUMENT
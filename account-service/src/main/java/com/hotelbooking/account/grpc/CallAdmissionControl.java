@@ -0,0 +1,79 @@
+package com.hotelbooking.account.grpc;
+
+import io.grpc.Context;
+import io.grpc.Metadata;
+import io.grpc.ServerCall;
+import io.grpc.ServerCallExecutorSupplier;
+import io.grpc.ServerCallHandler;
+import io.grpc.ServerInterceptor;
+import io.grpc.Status;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.Semaphore;
+
+/**
+ * Admission control in front of a bounded server executor: a call that would not fit in the pool
+ * and its queue is answered with RESOURCE_EXHAUSTED instead of being queued or reset.
+ *
+ * <p>grpc-java asks the {@link ServerCallExecutorSupplier} for a call's executor on the transport
+ * thread, before the call takes a slot in the pool. Every call holds one permit from then until its
+ * context is cancelled, which happens whenever a call ends. A call runs at most one task at a time,
+ * so an executor with room for every permit, plus the threads of calls that just released theirs,
+ * never rejects an admitted call.
+ * A call that gets no permit runs inline on the transport thread in shedding mode, where this
+ * interceptor closes it before any other interceptor or handler does work. It must therefore be
+ * registered last, so it runs first.
+ */
+public class CallAdmissionControl implements ServerCallExecutorSupplier, ServerInterceptor {
+
+    private static final ThreadLocal<Boolean> SHEDDING = ThreadLocal.withInitial(() -> false);
+    private static final Status OVERLOADED = Status.RESOURCE_EXHAUSTED.withDescription("Server is overloaded");
+
+    // Runs the tasks of a shed call on the calling transport thread; they only close it and drop its messages
+    private static final Executor SHED = task -> {
+        SHEDDING.set(true);
+        try {
+            task.run();
+        } finally {
+            SHEDDING.set(false);
+        }
+    };
+
+    private final Executor executor;
+    private final Semaphore permits;
+    private final Counter shed;
+
+    /**
+     * @param maxCalls calls admitted at once, the executor's threads plus its queue capacity
+     */
+    public CallAdmissionControl(Executor executor, int maxCalls, MeterRegistry meterRegistry) {
+        this.executor = executor;
+        this.permits = new Semaphore(maxCalls);
+        this.shed = Counter.builder("grpc.server.shed").register(meterRegistry);
+    }
+
+    @Override
+    public <ReqT, RespT> Executor getExecutor(ServerCall<ReqT, RespT> call, Metadata headers) {
+        if (!permits.tryAcquire()) {
+            return SHED;
+        }
+        // Called within the call's context, which is cancelled once the call completes or is cancelled
+        Context.current().addListener(context -> permits.release(), Runnable::run);
+        return executor;
+    }
+
+    @Override
+    public <ReqT, RespT> ServerCall.Listener<ReqT> interceptCall(ServerCall<ReqT, RespT> call,
+                                                                   Metadata headers,
+                                                                   ServerCallHandler<ReqT, RespT> next) {
+        if (!SHEDDING.get()) {
+            return next.startCall(call, headers);
+        }
+        shed.increment();
+        call.close(OVERLOADED, new Metadata());
+        return new ServerCall.Listener<>() {
+        };
+    }
+}
@@ -0,0 +1,89 @@
+package com.hotelbooking.account.grpc;
+
+import io.grpc.Status;
+import io.grpc.stub.ServerCallStreamObserver;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Sends server-streaming responses from a producer thread while honouring gRPC flow control:
+ * {@link #send} blocks until the transport is ready for more instead of buffering without limit.
+ * Must be created inside the service method, before it returns, so the handlers are registered in time.
+ */
+class FlowControlledSender<T> {
+
+    private final ServerCallStreamObserver<T> observer;
+    private final long readyTimeoutMs;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition ready = lock.newCondition();
+    private volatile boolean cancelled;
+
+    FlowControlledSender(ServerCallStreamObserver<T> observer, long readyTimeoutMs) {
+        this.observer = observer;
+        this.readyTimeoutMs = readyTimeoutMs;
+        observer.setOnReadyHandler(this::signal);
+        observer.setOnCancelHandler(() -> {
+            cancelled = true;
+            signal();
+        });
+    }
+
+    /**
+     * Wait for the client to accept more data, then send the message.
+     * Throws {@link io.grpc.StatusRuntimeException} if the call was cancelled or the client stalled.
+     */
+    void send(T message) {
+        // gRPC silently drops messages after a cancel, so stop the producer here instead
+        if (cancelled) {
+            throw Status.CANCELLED.withDescription("Client cancelled the stream").asRuntimeException();
+        }
+        if (!observer.isReady()) {
+            awaitReady();
+        }
+        observer.onNext(message);
+    }
+
+    void complete() {
+        if (!cancelled) {
+            observer.onCompleted();
+        }
+    }
+
+    void fail(Status status) {
+        if (!cancelled) {
+            observer.onError(status.asRuntimeException());
+        }
+    }
+
+    private void awaitReady() {
+        long remainingNanos = TimeUnit.MILLISECONDS.toNanos(readyTimeoutMs);
+        lock.lock();
+        try {
+            while (!observer.isReady() && !cancelled) {
+                if (remainingNanos <= 0) {
+                    throw Status.DEADLINE_EXCEEDED.withDescription("Client stopped reading the stream").asRuntimeException();
+                }
+                remainingNanos = ready.awaitNanos(remainingNanos);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw Status.CANCELLED.withDescription("Stream interrupted").asRuntimeException();
+        } finally {
+            lock.unlock();
+        }
+        if (cancelled) {
+            throw Status.CANCELLED.withDescription("Client cancelled the stream").asRuntimeException();
+        }
+    }
+
+    private void signal() {
+        lock.lock();
+        try {
+            ready.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+}
@@ -0,0 +1,19 @@
+package com.hotelbooking.account.grpc;
+
+import io.grpc.Context;
+import org.springframework.security.core.Authentication;
+
+/**
+ * gRPC {@link Context} keys populated by {@link JwtAuthenticationInterceptor} for each call
+ */
+public final class GrpcContextKeys {
+
+    // Address of the calling client: the gateway's forwarded header if present, else the peer address
+    public static final Context.Key<String> CLIENT_ADDRESS = Context.key("client-address");
+
+    // Authenticated caller; absent on public methods
+    public static final Context.Key<Authentication> AUTHENTICATION = Context.key("authentication");
+
+    private GrpcContextKeys() {
+    }
+}
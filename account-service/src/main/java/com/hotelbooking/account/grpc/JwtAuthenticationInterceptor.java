@@ -1,15 +1,19 @@
 package com.hotelbooking.account.grpc;
 
+import com.hotelbooking.account.security.ClientAddressResolver;
 import com.hotelbooking.account.security.CustomUserDetailsService;
+import com.hotelbooking.account.security.VerifiedToken;
 import com.hotelbooking.account.service.BlacklistTokenService;
 import com.hotelbooking.account.service.JwtService;
 import io.grpc.*;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
-import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Component;
 
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+
 @Component
 public class JwtAuthenticationInterceptor implements ServerInterceptor {
 
@@ -18,40 +22,40 @@ public class JwtAuthenticationInterceptor implements ServerInterceptor {
     private final JwtService jwtService;
     private final CustomUserDetailsService userDetailsService;
     private final BlacklistTokenService blacklistTokenService;
+    private final MethodPolicyTable policyTable;
+    private final ClientAddressResolver clientAddressResolver;
 
-    // List of methods that don't require authentication
-    private static final String[] PUBLIC_METHODS = {
-        "/com.hotelbooking.account.AuthService/Login",
-        "/com.hotelbooking.account.AuthService/Register",
-        "/com.hotelbooking.account.AuthService/RefreshToken",
-        "/com.hotelbooking.account.AuthService/VerifyEmail",
-        "/com.hotelbooking.account.AuthService/ResendVerificationEmail",
-        "/com.hotelbooking.account.AuthService/ForgotPassword",
-        "/com.hotelbooking.account.AuthService/ResetPassword",
-        "/com.hotelbooking.account.HealthService/Check"
-    };
+    private static final Metadata.Key<String> AUTHORIZATION_KEY =
+        Metadata.Key.of("authorization", Metadata.ASCII_STRING_MARSHALLER);
+    private static final Metadata.Key<String> FORWARDED_FOR_KEY =
+        Metadata.Key.of("x-forwarded-for", Metadata.ASCII_STRING_MARSHALLER);
 
     public JwtAuthenticationInterceptor(JwtService jwtService,
                                         CustomUserDetailsService userDetailsService,
-                                        BlacklistTokenService blacklistTokenService) {
+                                        BlacklistTokenService blacklistTokenService,
+                                        MethodPolicyTable policyTable,
+                                        ClientAddressResolver clientAddressResolver) {
         this.jwtService = jwtService;
         this.userDetailsService = userDetailsService;
         this.blacklistTokenService = blacklistTokenService;
+        this.policyTable = policyTable;
+        this.clientAddressResolver = clientAddressResolver;
     }
 
     @Override
     public <ReqT, RespT> ServerCall.Listener<ReqT> interceptCall(ServerCall<ReqT, RespT> call,
                                                                    Metadata headers,
                                                                    ServerCallHandler<ReqT, RespT> next) {
-        String methodName = call.getMethodDescriptor().getFullMethodName();
+        MethodPolicy policy = policyTable.policyFor(call.getMethodDescriptor());
         
         // Check if the method is public
-        if (isPublicMethod(methodName)) {
-            return next.startCall(call, headers);
+        if (policy.isPublic()) {
+            Context context = Context.current().withValue(GrpcContextKeys.CLIENT_ADDRESS, clientAddress(call, headers));
+            return Contexts.interceptCall(context, call, headers, next);
         }
 
         // Extract authorization header
-        String authHeader = headers.get(Metadata.Key.of("authorization", Metadata.ASCII_STRING_MARSHALLER));
+        String authHeader = headers.get(AUTHORIZATION_KEY);
 
         if (authHeader == null || !authHeader.startsWith("Bearer ")) {
             call.close(Status.UNAUTHENTICATED.withDescription("Authorization header missing or invalid"), 
@@ -62,41 +66,51 @@ public class JwtAuthenticationInterceptor implements ServerInterceptor {
         String token = authHeader.substring(7);
 
         try {
-            // Check if token is blacklisted
-            if (blacklistTokenService.isTokenBlacklisted(token)) {
+            // Verify the token once and reuse the claims for every check below
+            VerifiedToken verifiedToken = jwtService.verify(token);
+            String username = verifiedToken.getSubject();
+
+            // Check if token is blacklisted or its user revoked all tokens
+            if (blacklistTokenService.isTokenRevoked(token, verifiedToken)) {
                 call.close(Status.UNAUTHENTICATED.withDescription("Token has been revoked"), 
                     new Metadata());
                 return new ServerCall.Listener<ReqT>() {};
             }
 
-            // Validate token and extract username
-            String username = jwtService.extractUsername(token);
-
             if (username == null) {
                 call.close(Status.UNAUTHENTICATED.withDescription("Invalid token"), 
                     new Metadata());
                 return new ServerCall.Listener<ReqT>() {};
             }
 
-            // Validate token signature and expiration
-            if (!jwtService.isTokenValid(token, username)) {
+            // Load user details, from the token claims alone in claims-trust mode
+            var userDetails = userDetailsService.loadUserByToken(verifiedToken);
+
+            // Validate token subject and expiration
+            if (!jwtService.isTokenValid(verifiedToken, userDetails)) {
                 call.close(Status.UNAUTHENTICATED.withDescription("Token expired or invalid"), 
                     new Metadata());
                 return new ServerCall.Listener<ReqT>() {};
             }
 
-            // Load user details
-            var userDetails = userDetailsService.loadUserByUsername(username);
-
             // Create authentication object
             UsernamePasswordAuthenticationToken authentication = 
                 new UsernamePasswordAuthenticationToken(userDetails, null, userDetails.getAuthorities());
 
-            // Set authentication in SecurityContext
-            SecurityContextHolder.getContext().setAuthentication(authentication);
+            // Enforce @RequirePermission / @RequireRole from the policy table
+            if (!policy.permits(authentication)) {
+                call.close(Status.PERMISSION_DENIED.withDescription("Insufficient permissions"), 
+                    new Metadata());
+                return new ServerCall.Listener<ReqT>() {};
+            }
 
-            // Proceed with the call
-            return next.startCall(call, headers);
+            // Carry the authentication with the call rather than on the transport thread;
+            // the listener installs it around each callback on whichever thread runs it
+            Context context = Context.current()
+                .withValue(GrpcContextKeys.CLIENT_ADDRESS, clientAddress(call, headers))
+                .withValue(GrpcContextKeys.AUTHENTICATION, authentication);
+            ServerCall.Listener<ReqT> listener = Contexts.interceptCall(context, call, headers, next);
+            return new SecurityContextListener<>(listener, authentication);
 
         } catch (Exception e) {
             logger.error("Error during JWT authentication", e);
@@ -106,12 +120,14 @@ public class JwtAuthenticationInterceptor implements ServerInterceptor {
         }
     }
 
-    private boolean isPublicMethod(String methodName) {
-        for (String publicMethod : PUBLIC_METHODS) {
-            if (methodName.equals(publicMethod)) {
-                return true;
-            }
+    private String clientAddress(ServerCall<?, ?> call, Metadata headers) {
+        SocketAddress remote = call.getAttributes().get(Grpc.TRANSPORT_ATTR_REMOTE_ADDR);
+        String peer;
+        if (remote instanceof InetSocketAddress inet && inet.getAddress() != null) {
+            peer = inet.getAddress().getHostAddress();
+        } else {
+            peer = remote != null ? remote.toString() : null;
         }
-        return false;
+        return clientAddressResolver.resolve(peer, headers.get(FORWARDED_FOR_KEY));
     }
 }
@@ -0,0 +1,44 @@
+package com.hotelbooking.account.grpc;
+
+import com.hotelbooking.account.enums.RoleType;
+import com.hotelbooking.account.security.AuthorizationMasks;
+import org.springframework.security.core.Authentication;
+
+/**
+ * Access rule for one gRPC method, resolved once at startup.
+ * A zero mask means "no requirement" for that dimension.
+ */
+final class MethodPolicy {
+
+    static final MethodPolicy PUBLIC = new MethodPolicy(true, 0L, 0);
+    static final MethodPolicy AUTHENTICATED = new MethodPolicy(false, 0L, 0);
+
+    private final boolean publicMethod;
+    private final long requiredPermissionMask;
+    private final int allowedRoleMask;
+
+    MethodPolicy(boolean publicMethod, long requiredPermissionMask, int allowedRoleMask) {
+        this.publicMethod = publicMethod;
+        this.requiredPermissionMask = requiredPermissionMask;
+        this.allowedRoleMask = allowedRoleMask;
+    }
+
+    boolean isPublic() {
+        return publicMethod;
+    }
+
+    /**
+     * Whether the caller holds at least one of the required permissions and one of the allowed roles
+     */
+    boolean permits(Authentication authentication) {
+        if (requiredPermissionMask != 0
+                && (AuthorizationMasks.permissionMaskOf(authentication) & requiredPermissionMask) == 0) {
+            return false;
+        }
+        if (allowedRoleMask != 0) {
+            RoleType role = AuthorizationMasks.roleOf(authentication);
+            return role != null && (role.mask() & allowedRoleMask) != 0;
+        }
+        return true;
+    }
+}
@@ -0,0 +1,115 @@
+package com.hotelbooking.account.grpc;
+
+import com.hotelbooking.account.enums.Permission;
+import com.hotelbooking.account.security.AuthorizationMasks;
+import com.hotelbooking.account.security.PublicRpc;
+import com.hotelbooking.account.security.RequirePermission;
+import com.hotelbooking.account.security.RequireRole;
+import io.grpc.BindableService;
+import io.grpc.MethodDescriptor;
+import io.grpc.ServerMethodDefinition;
+import io.grpc.ServerServiceDefinition;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import org.springframework.util.ClassUtils;
+
+import java.lang.annotation.Annotation;
+import java.lang.reflect.AnnotatedElement;
+import java.lang.reflect.Method;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Immutable per-method access policy for every registered gRPC service, built once at startup
+ * from {@link PublicRpc}, {@link RequirePermission} and {@link RequireRole} on the service
+ * implementation (method annotations win over class annotations). Unannotated methods only
+ * require a valid token.
+ */
+@Slf4j
+@Component
+public class MethodPolicyTable {
+
+    // Infrastructure services that have no annotated implementation of ours
+    private static final Set<String> PUBLIC_SERVICES = Set.of("grpc.health.v1.Health");
+
+    private final Map<MethodDescriptor<?, ?>, MethodPolicy> byDescriptor;
+    private final Map<String, MethodPolicy> byFullName;
+
+    public MethodPolicyTable(List<BindableService> services) {
+        Map<MethodDescriptor<?, ?>, MethodPolicy> descriptors = new IdentityHashMap<>();
+        Map<String, MethodPolicy> names = new HashMap<>();
+        for (BindableService service : services) {
+            Class<?> implClass = ClassUtils.getUserClass(service);
+            ServerServiceDefinition definition = service.bindService();
+            boolean publicService = PUBLIC_SERVICES.contains(definition.getServiceDescriptor().getName());
+            for (ServerMethodDefinition<?, ?> methodDefinition : definition.getMethods()) {
+                MethodDescriptor<?, ?> descriptor = methodDefinition.getMethodDescriptor();
+                MethodPolicy policy = publicService ? MethodPolicy.PUBLIC : resolve(implClass, descriptor);
+                descriptors.put(descriptor, policy);
+                names.put(descriptor.getFullMethodName(), policy);
+            }
+        }
+        this.byDescriptor = Collections.unmodifiableMap(descriptors);
+        this.byFullName = Map.copyOf(names);
+        log.info("Built gRPC method policy table for {} methods", byFullName.size());
+    }
+
+    /**
+     * Policy for the called method. The descriptor is normally the very instance registered at
+     * startup; the name lookup only covers descriptors re-created by wrapping interceptors.
+     */
+    MethodPolicy policyFor(MethodDescriptor<?, ?> descriptor) {
+        MethodPolicy policy = byDescriptor.get(descriptor);
+        if (policy == null) {
+            policy = byFullName.getOrDefault(descriptor.getFullMethodName(), MethodPolicy.AUTHENTICATED);
+        }
+        return policy;
+    }
+
+    private static MethodPolicy resolve(Class<?> implClass, MethodDescriptor<?, ?> descriptor) {
+        Method method = findImplMethod(implClass, descriptor.getBareMethodName());
+        AnnotatedElement[] sources = method != null
+                ? new AnnotatedElement[]{method, implClass}
+                : new AnnotatedElement[]{implClass};
+
+        if (find(sources, PublicRpc.class) != null) {
+            return MethodPolicy.PUBLIC;
+        }
+        RequirePermission requirePermission = find(sources, RequirePermission.class);
+        RequireRole requireRole = find(sources, RequireRole.class);
+        if (requirePermission == null && requireRole == null) {
+            return MethodPolicy.AUTHENTICATED;
+        }
+        return new MethodPolicy(false,
+                requirePermission != null ? Permission.maskOf(requirePermission.value()) : 0L,
+                requireRole != null ? AuthorizationMasks.roleMaskOf(requireRole.value()) : 0);
+    }
+
+    // Generated stubs name handler methods after the RPC in lowerCamelCase, taking (request, observer)
+    private static Method findImplMethod(Class<?> implClass, String bareMethodName) {
+        if (bareMethodName == null || bareMethodName.isEmpty()) {
+            return null;
+        }
+        String javaName = Character.toLowerCase(bareMethodName.charAt(0)) + bareMethodName.substring(1);
+        for (Method method : implClass.getMethods()) {
+            if (method.getName().equals(javaName) && method.getParameterCount() == 2) {
+                return method;
+            }
+        }
+        return null;
+    }
+
+    private static <A extends Annotation> A find(AnnotatedElement[] sources, Class<A> type) {
+        for (AnnotatedElement source : sources) {
+            A annotation = source.getAnnotation(type);
+            if (annotation != null) {
+                return annotation;
+            }
+        }
+        return null;
+    }
+}
@@ -0,0 +1,73 @@
+package com.hotelbooking.account.grpc;
+
+import io.grpc.ForwardingServerCallListener;
+import io.grpc.ServerCall;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContext;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+/**
+ * Installs the call's authentication in the {@link SecurityContextHolder} for the duration of
+ * each listener callback and clears it afterwards. Callbacks of one call may run on different
+ * executor threads, so the context is never left behind on a thread for the next call to see.
+ */
+class SecurityContextListener<ReqT> extends ForwardingServerCallListener.SimpleForwardingServerCallListener<ReqT> {
+
+    private final SecurityContext securityContext;
+
+    SecurityContextListener(ServerCall.Listener<ReqT> delegate, Authentication authentication) {
+        super(delegate);
+        this.securityContext = SecurityContextHolder.createEmptyContext();
+        this.securityContext.setAuthentication(authentication);
+    }
+
+    @Override
+    public void onMessage(ReqT message) {
+        SecurityContextHolder.setContext(securityContext);
+        try {
+            super.onMessage(message);
+        } finally {
+            SecurityContextHolder.clearContext();
+        }
+    }
+
+    @Override
+    public void onHalfClose() {
+        SecurityContextHolder.setContext(securityContext);
+        try {
+            super.onHalfClose();
+        } finally {
+            SecurityContextHolder.clearContext();
+        }
+    }
+
+    @Override
+    public void onCancel() {
+        SecurityContextHolder.setContext(securityContext);
+        try {
+            super.onCancel();
+        } finally {
+            SecurityContextHolder.clearContext();
+        }
+    }
+
+    @Override
+    public void onComplete() {
+        SecurityContextHolder.setContext(securityContext);
+        try {
+            super.onComplete();
+        } finally {
+            SecurityContextHolder.clearContext();
+        }
+    }
+
+    @Override
+    public void onReady() {
+        SecurityContextHolder.setContext(securityContext);
+        try {
+            super.onReady();
+        } finally {
+            SecurityContextHolder.clearContext();
+        }
+    }
+}
@@ -0,0 +1,137 @@
+package com.hotelbooking.account.migration;
+
+import com.hotelbooking.account.security.TokenHashing;
+import lombok.extern.slf4j.Slf4j;
+import org.flywaydb.core.api.migration.BaseJavaMigration;
+import org.flywaydb.core.api.migration.Context;
+import org.springframework.stereotype.Component;
+
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.time.Instant;
+
+/**
+ * Moves token_blacklist from the full-JWT TEXT column to the fixed-width token_id key.
+ * Legacy rows carry no jti, so they are keyed by the SHA-256 digest of the stored token.
+ * Runs before Hibernate touches the schema and is a no-op on a fresh or already migrated schema.
+ * Every step can be repeated, so a run interrupted part-way is completed by the next one:
+ * the column is added nullable, filled in committed batches, then made unique and NOT NULL,
+ * and the legacy column is dropped last.
+ */
+@Component
+@Slf4j
+public class V1__Token_blacklist_token_id extends BaseJavaMigration {
+
+    private static final String TABLE = "token_blacklist";
+    private static final String LEGACY_COLUMN = "jwt_token";
+    private static final String KEY_COLUMN = "token_id";
+    private static final String UNIQUE_KEY = "uk_token_blacklist_token_id";
+    private static final int BATCH_SIZE = 1000;
+
+    // Batches commit on their own; MySQL commits DDL implicitly anyway
+    @Override
+    public boolean canExecuteInTransaction() {
+        return false;
+    }
+
+    @Override
+    public void migrate(Context context) throws Exception {
+        Connection connection = context.getConnection();
+        if (!columnExists(connection, LEGACY_COLUMN)) {
+            return;
+        }
+
+        try (Statement statement = connection.createStatement()) {
+            if (!columnExists(connection, KEY_COLUMN)) {
+                statement.execute("ALTER TABLE " + TABLE + " ADD COLUMN " + KEY_COLUMN + " VARCHAR(64) NULL");
+            }
+
+            // Expired rows are never checked again, no point in converting them
+            int purged;
+            try (PreparedStatement delete = connection.prepareStatement(
+                    "DELETE FROM " + TABLE + " WHERE expires_at < ? OR " + LEGACY_COLUMN + " IS NULL")) {
+                delete.setTimestamp(1, Timestamp.from(Instant.now()));
+                purged = delete.executeUpdate();
+            }
+
+            int converted = backfill(connection);
+
+            if (!indexExists(connection, UNIQUE_KEY)) {
+                // The same JWT may have been blacklisted twice; keep one row per key
+                statement.executeUpdate("DELETE t1 FROM " + TABLE + " t1 JOIN " + TABLE + " t2 " +
+                        "ON t1." + KEY_COLUMN + " = t2." + KEY_COLUMN + " AND t1.id > t2.id");
+                statement.execute("ALTER TABLE " + TABLE + " ADD CONSTRAINT " + UNIQUE_KEY + " UNIQUE (" + KEY_COLUMN + ")");
+            }
+            statement.execute("ALTER TABLE " + TABLE + " MODIFY " + KEY_COLUMN + " VARCHAR(64) NOT NULL");
+            statement.execute("ALTER TABLE " + TABLE + " DROP COLUMN " + LEGACY_COLUMN);
+
+            log.info("Migrated token_blacklist to token_id keys: {} rows converted, {} expired rows removed",
+                    converted, purged);
+        }
+    }
+
+    private static int backfill(Connection connection) throws SQLException {
+        boolean autoCommit = connection.getAutoCommit();
+        connection.setAutoCommit(false);
+        int converted = 0;
+        try (PreparedStatement select = connection.prepareStatement(
+                "SELECT id, " + LEGACY_COLUMN + " FROM " + TABLE + " WHERE " + KEY_COLUMN + " IS NULL LIMIT " + BATCH_SIZE);
+             PreparedStatement update = connection.prepareStatement(
+                "UPDATE " + TABLE + " SET " + KEY_COLUMN + " = ? WHERE id = ?")) {
+            int rows;
+            do {
+                rows = 0;
+                try (ResultSet rs = select.executeQuery()) {
+                    while (rs.next()) {
+                        update.setString(1, TokenHashing.sha256Hex(rs.getString(2)));
+                        update.setObject(2, rs.getObject(1));
+                        update.addBatch();
+                        rows++;
+                    }
+                }
+                if (rows > 0) {
+                    update.executeBatch();
+                    connection.commit();
+                    converted += rows;
+                }
+            } while (rows == BATCH_SIZE);
+        } catch (SQLException e) {
+            connection.rollback();
+            throw e;
+        } finally {
+            connection.setAutoCommit(autoCommit);
+        }
+        return converted;
+    }
+
+    private static boolean columnExists(Connection connection, String column) throws SQLException {
+        DatabaseMetaData metaData = connection.getMetaData();
+        for (String table : new String[]{TABLE, TABLE.toUpperCase()}) {
+            for (String name : new String[]{column, column.toUpperCase()}) {
+                try (ResultSet rs = metaData.getColumns(connection.getCatalog(), null, table, name)) {
+                    if (rs.next()) {
+                        return true;
+                    }
+                }
+            }
+        }
+        return false;
+    }
+
+    private static boolean indexExists(Connection connection, String index) throws SQLException {
+        DatabaseMetaData metaData = connection.getMetaData();
+        try (ResultSet rs = metaData.getIndexInfo(connection.getCatalog(), null, TABLE, true, false)) {
+            while (rs.next()) {
+                if (index.equalsIgnoreCase(rs.getString("INDEX_NAME"))) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+}
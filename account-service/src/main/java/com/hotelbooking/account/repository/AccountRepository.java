@@ -1,19 +1,31 @@
 package com.hotelbooking.account.repository;
 
+import com.hotelbooking.account.dto.NotificationRecipient;
 import com.hotelbooking.account.entity.Account;
 import com.hotelbooking.account.enums.RoleType;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.time.OffsetDateTime;
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
+import java.util.stream.Stream;
 
 @Repository
-public interface AccountRepository extends JpaRepository<Account, UUID> {
+public interface AccountRepository extends JpaRepository<Account, UUID>, JpaSpecificationExecutor<Account> {
     Optional<Account> findByEmail(String email);
     Optional<Account> findByUsernameAndDeletedAtIsNull(String username);
     Optional<Account> findByEmailAndDeletedAtIsNull(String email);
@@ -28,6 +40,58 @@ public interface AccountRepository extends JpaRepository<Account, UUID> {
 
     Optional<Account> findByIdAndDeletedAtIsNull(UUID id);
 
+    // Page over ids already matched by the in-memory search index
+    Page<Account> findByIdInAndDeletedAtIsNull(Collection<UUID> ids, Pageable pageable);
+
+    // Accounts whose tokens were revoked recently enough that some may still be unexpired
+    List<Account> findByTokensRevokedAtAfter(OffsetDateTime since);
+
+    // Accounts written since the given instant, deleted ones included, for the search index sync
+    List<Account> findByUpdatedAtAfter(OffsetDateTime since);
+
+    @Modifying
+    @Query("UPDATE Account a SET a.tokensRevokedAt = :revokedAt WHERE a.id = :id")
+    int updateTokensRevokedAt(@Param("id") UUID id, @Param("revokedAt") OffsetDateTime revokedAt);
+
+    // Replace the hash only if it is still the one we verified against
+    @Transactional
+    @Modifying
+    @Query("UPDATE Account a SET a.password = :newPassword WHERE a.id = :id AND a.password = :currentPassword")
+    int updatePasswordIfUnchanged(@Param("id") UUID id,
+                                  @Param("currentPassword") String currentPassword,
+                                  @Param("newPassword") String newPassword);
+
+    // Cursor-backed streams for exports; the fetch size keeps only one batch of rows in the driver.
+    // MySQL needs useCursorFetch=true on the JDBC URL to honour it.
+    @QueryHints({
+        @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"),
+        @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("SELECT a FROM Account a WHERE a.deletedAt IS NULL " +
+           "AND (:role IS NULL OR a.role = :role) " +
+           "AND (:keyword IS NULL OR " +
+           "LOWER(a.username) LIKE LOWER(CONCAT('%', :keyword, '%')) OR " +
+           "LOWER(a.email) LIKE LOWER(CONCAT('%', :keyword, '%')) OR " +
+           "LOWER(a.phone) LIKE LOWER(CONCAT('%', :keyword, '%')))")
+    Stream<Account> streamByRoleAndKeyword(@Param("role") RoleType role,
+                                           @Param("keyword") String keyword,
+                                           Sort sort);
+
+    @QueryHints({
+        @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"),
+        @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("SELECT a FROM Account a WHERE (:includeDeleted = true OR a.deletedAt IS NULL) ORDER BY a.id")
+    Stream<Account> streamAllOrderById(@Param("includeDeleted") boolean includeDeleted);
+
+    // Keyset chunk of bulk notification recipients: active accounts of one role after the given id
+    @Query("SELECT new com.hotelbooking.account.dto.NotificationRecipient(a.id, a.email, a.username) " +
+           "FROM Account a WHERE a.role = :role AND a.isActive = true AND a.deletedAt IS NULL AND a.id > :afterId " +
+           "ORDER BY a.id")
+    List<NotificationRecipient> findNotificationRecipients(@Param("role") RoleType role,
+                                                           @Param("afterId") UUID afterId,
+                                                           Pageable pageable);
+
     // Search by keyword in username, email, or phone
     @Query("SELECT a FROM Account a WHERE a.deletedAt IS NULL AND " +
            "(LOWER(a.username) LIKE LOWER(CONCAT('%', :keyword, '%')) OR " +
@@ -0,0 +1,41 @@
+package com.hotelbooking.account.repository;
+
+import com.hotelbooking.account.entity.EmailOutbox;
+import com.hotelbooking.account.enums.EmailOutboxStatus;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.OffsetDateTime;
+import java.util.List;
+import java.util.UUID;
+
+@Repository
+public interface EmailOutboxRepository extends JpaRepository<EmailOutbox, UUID> {
+
+    // Oldest due messages first; served by idx_email_outbox_status_next_attempt
+    List<EmailOutbox> findByStatusAndNextAttemptAtLessThanEqualOrderByNextAttemptAtAsc(EmailOutboxStatus status,
+                                                                                      OffsetDateTime now,
+                                                                                      Pageable pageable);
+
+    @Transactional
+    @Modifying
+    @Query("UPDATE EmailOutbox e SET e.status = :status, e.attempts = :attempts, e.nextAttemptAt = :nextAttemptAt, " +
+           "e.lastError = :lastError, e.sentAt = :sentAt WHERE e.id = :id")
+    int updateDeliveryState(@Param("id") UUID id,
+                            @Param("status") EmailOutboxStatus status,
+                            @Param("attempts") int attempts,
+                            @Param("nextAttemptAt") OffsetDateTime nextAttemptAt,
+                            @Param("lastError") String lastError,
+                            @Param("sentAt") OffsetDateTime sentAt);
+
+    @Transactional
+    @Modifying
+    @Query("DELETE FROM EmailOutbox e WHERE e.status = :status AND e.createdAt < :before")
+    int deleteByStatusAndCreatedAtBefore(@Param("status") EmailOutboxStatus status,
+                                         @Param("before") OffsetDateTime before);
+}
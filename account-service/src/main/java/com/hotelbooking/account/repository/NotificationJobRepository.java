@@ -0,0 +1,30 @@
+package com.hotelbooking.account.repository;
+
+import com.hotelbooking.account.entity.NotificationJob;
+import com.hotelbooking.account.enums.NotificationJobStatus;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.OffsetDateTime;
+import java.util.Collection;
+import java.util.UUID;
+
+@Repository
+public interface NotificationJobRepository extends JpaRepository<NotificationJob, UUID> {
+
+    // Claim a stopped job for resuming. A RUNNING job whose checkpoint went stale is assumed to
+    // have died with its replica and may be claimed too; a live one keeps updatedAt fresh.
+    @Transactional
+    @Modifying
+    @Query("UPDATE NotificationJob j SET j.status = :running, j.lastError = null, j.updatedAt = :now " +
+           "WHERE j.id = :id AND (j.status IN :resumable OR (j.status = :running AND j.updatedAt < :staleBefore))")
+    int claimForResume(@Param("id") UUID id,
+                       @Param("running") NotificationJobStatus running,
+                       @Param("resumable") Collection<NotificationJobStatus> resumable,
+                       @Param("now") OffsetDateTime now,
+                       @Param("staleBefore") OffsetDateTime staleBefore);
+}
@@ -0,0 +1,32 @@
+package com.hotelbooking.account.repository;
+
+import com.hotelbooking.account.entity.RefreshTokenFamily;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.OffsetDateTime;
+import java.util.UUID;
+
+@Repository
+public interface RefreshTokenRepository extends JpaRepository<RefreshTokenFamily, UUID> {
+
+    // Compare-and-set: succeeds only if the presented token is still of the family's current generation.
+    // The family keeps its original expiry, rotation does not extend the session.
+    @Modifying
+    @Query("UPDATE RefreshTokenFamily f SET f.generation = f.generation + 1 " +
+           "WHERE f.familyId = :familyId AND f.generation = :expectedGeneration AND f.expiresAt > :now")
+    int rotate(@Param("familyId") UUID familyId,
+               @Param("expectedGeneration") long expectedGeneration,
+               @Param("now") OffsetDateTime now);
+
+    @Modifying
+    @Query("DELETE FROM RefreshTokenFamily f WHERE f.userId = :userId")
+    int deleteByUserId(@Param("userId") UUID userId);
+
+    @Modifying
+    @Query("DELETE FROM RefreshTokenFamily f WHERE f.expiresAt < :now")
+    int deleteExpired(@Param("now") OffsetDateTime now);
+}
@@ -1,24 +1,31 @@
 package com.hotelbooking.account.repository;
 
 import com.hotelbooking.account.entity.TokenBlacklist;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
-import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.time.OffsetDateTime;
+import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
 
 @Repository
 public interface TokenBlacklistRepository extends JpaRepository<TokenBlacklist, UUID> {
     
-    Optional<TokenBlacklist> findByJwtToken(String jwtToken);
+    Optional<TokenBlacklist> findByTokenId(String tokenId);
     
-    boolean existsByJwtToken(String jwtToken);
+    boolean existsByTokenId(String tokenId);
+
+    // Unexpired entries, used to build the in-memory blacklist index
+    List<TokenBlacklist> findByExpiresAtAfter(OffsetDateTime now);
+
+    // Entries added since the last index sync
+    List<TokenBlacklist> findByBlacklistedAtAfterAndExpiresAtAfter(OffsetDateTime since, OffsetDateTime now);
     
-    @Modifying
-    @Query("DELETE FROM TokenBlacklist t WHERE t.expiresAt < :now")
-    void deleteExpiredTokens(@Param("now") OffsetDateTime now);
+    // One chunk of expired entry ids, walked along the expires_at index
+    @Query("SELECT t.id FROM TokenBlacklist t WHERE t.expiresAt < :now ORDER BY t.expiresAt")
+    List<UUID> findExpiredIds(@Param("now") OffsetDateTime now, Pageable pageable);
 }
\ No newline at end of file
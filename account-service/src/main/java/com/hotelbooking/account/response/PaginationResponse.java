@@ -25,7 +25,8 @@ public class PaginationResponse<T> {
         private int totalPages;
         private boolean hasNext;
         private boolean hasPrevious;
-
+        // Opaque token for the next page in keyset mode; null on the last page
+        private String nextCursor;
 
         public Paging(int total, int pageNumber, int pageSize, int totalPages, boolean hasNext, boolean hasPrevious) {
             this.total = total;
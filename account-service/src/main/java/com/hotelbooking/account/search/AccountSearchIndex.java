@@ -0,0 +1,181 @@
+package com.hotelbooking.account.search;
+
+import com.hotelbooking.account.enums.RoleType;
+import org.springframework.stereotype.Component;
+
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * In-memory trigram index over normalized username, email and phone of live accounts.
+ * A substring query looks up the posting list of its rarest trigram and verifies each
+ * candidate, so its cost follows the number of matches rather than the number of accounts.
+ * Reads are lock-free; writes are serialized and rare.
+ */
+@Component
+public class AccountSearchIndex {
+
+    static final int GRAM_LENGTH = 3;
+
+    private final Object writeLock = new Object();
+
+    private volatile Segment current = new Segment();
+    private volatile boolean loaded;
+
+    // Non-null while a full rebuild is in progress; live updates go to both segments
+    private Segment rebuilding;
+    private Set<UUID> touchedDuringRebuild;
+
+    public boolean isLoaded() {
+        return loaded;
+    }
+
+    public int size() {
+        return current.entries.size();
+    }
+
+    /**
+     * Apply a committed change; deleted accounts are removed from the index
+     */
+    public void apply(IndexedAccount account) {
+        synchronized (writeLock) {
+            current.apply(account);
+            if (rebuilding != null) {
+                rebuilding.apply(account);
+                touchedDuringRebuild.add(account.id());
+            }
+        }
+    }
+
+    public void remove(UUID id) {
+        synchronized (writeLock) {
+            current.remove(id);
+            if (rebuilding != null) {
+                rebuilding.remove(id);
+                touchedDuringRebuild.add(id);
+            }
+        }
+    }
+
+    /**
+     * Start a full rebuild into a fresh segment. Rows read from the database are added with
+     * {@link #addRebuilt}; accounts changed meanwhile keep their newer live state.
+     */
+    public void beginRebuild() {
+        synchronized (writeLock) {
+            rebuilding = new Segment();
+            touchedDuringRebuild = new HashSet<>();
+        }
+    }
+
+    public void addRebuilt(IndexedAccount account) {
+        synchronized (writeLock) {
+            if (rebuilding != null && !touchedDuringRebuild.contains(account.id())) {
+                rebuilding.apply(account);
+            }
+        }
+    }
+
+    public void finishRebuild() {
+        synchronized (writeLock) {
+            if (rebuilding != null) {
+                current = rebuilding;
+                rebuilding = null;
+                touchedDuringRebuild = null;
+                loaded = true;
+            }
+        }
+    }
+
+    public void abortRebuild() {
+        synchronized (writeLock) {
+            rebuilding = null;
+            touchedDuringRebuild = null;
+        }
+    }
+
+    /**
+     * Ids of live accounts whose username, email or phone contains the keyword, optionally
+     * restricted to a role. Empty if the index cannot answer: not loaded yet, a keyword shorter
+     * than a trigram, or more matches than {@code maxResults}.
+     */
+    public Optional<Set<UUID>> search(String keyword, RoleType role, int maxResults) {
+        String needle = IndexedAccount.normalize(keyword);
+        if (!loaded || needle.length() < GRAM_LENGTH) {
+            return Optional.empty();
+        }
+        Segment segment = current;
+
+        Set<UUID> rarest = null;
+        for (int i = 0; i + GRAM_LENGTH <= needle.length(); i++) {
+            Set<UUID> postings = segment.postings.get(needle.substring(i, i + GRAM_LENGTH));
+            if (postings == null) {
+                return Optional.of(Collections.emptySet());
+            }
+            if (rarest == null || postings.size() < rarest.size()) {
+                rarest = postings;
+            }
+        }
+
+        Set<UUID> matches = new HashSet<>();
+        for (UUID id : rarest) {
+            IndexedAccount account = segment.entries.get(id);
+            if (account != null && (role == null || account.role() == role) && account.text().contains(needle)) {
+                if (matches.size() == maxResults) {
+                    return Optional.empty();
+                }
+                matches.add(id);
+            }
+        }
+        return Optional.of(matches);
+    }
+
+    private static final class Segment {
+        private final Map<UUID, IndexedAccount> entries = new ConcurrentHashMap<>();
+        private final Map<String, Set<UUID>> postings = new ConcurrentHashMap<>();
+
+        private void apply(IndexedAccount account) {
+            remove(account.id());
+            if (account.deleted()) {
+                return;
+            }
+            entries.put(account.id(), account);
+            for (String gram : gramsOf(account.text())) {
+                postings.computeIfAbsent(gram, g -> ConcurrentHashMap.newKeySet()).add(account.id());
+            }
+        }
+
+        private void remove(UUID id) {
+            IndexedAccount previous = entries.remove(id);
+            if (previous == null) {
+                return;
+            }
+            for (String gram : gramsOf(previous.text())) {
+                Set<UUID> ids = postings.get(gram);
+                if (ids != null) {
+                    ids.remove(id);
+                    if (ids.isEmpty()) {
+                        postings.remove(gram, ids);
+                    }
+                }
+            }
+        }
+
+        private static Set<String> gramsOf(String text) {
+            Set<String> grams = new HashSet<>();
+            for (int i = 0; i + GRAM_LENGTH <= text.length(); i++) {
+                String gram = text.substring(i, i + GRAM_LENGTH);
+                // Grams spanning the field separator can never match a keyword
+                if (gram.indexOf('\u0000') < 0) {
+                    grams.add(gram);
+                }
+            }
+            return grams;
+        }
+    }
+}
@@ -0,0 +1,54 @@
+package com.hotelbooking.account.search;
+
+import com.hotelbooking.account.entity.Account;
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.UUID;
+
+/**
+ * Keeps {@link AccountSearchIndex} in step with account writes. Changes are applied only after
+ * the transaction commits, so a rolled-back save never shows up in search results.
+ */
+@Component
+public class AccountSearchIndexListener {
+
+    // Resolved lazily: Hibernate creates entity listeners while the context is still starting
+    private final ObjectProvider<AccountSearchIndex> searchIndex;
+
+    public AccountSearchIndexListener(ObjectProvider<AccountSearchIndex> searchIndex) {
+        this.searchIndex = searchIndex;
+    }
+
+    @PostPersist
+    @PostUpdate
+    public void onSave(Account account) {
+        // Capture the fields now; the entity may change again before commit
+        IndexedAccount snapshot = IndexedAccount.of(account);
+        afterCommit(() -> searchIndex.getObject().apply(snapshot));
+    }
+
+    @PostRemove
+    public void onRemove(Account account) {
+        UUID id = account.getId();
+        afterCommit(() -> searchIndex.getObject().remove(id));
+    }
+
+    private static void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+}
@@ -0,0 +1,27 @@
+package com.hotelbooking.account.search;
+
+import com.hotelbooking.account.entity.Account;
+import com.hotelbooking.account.enums.RoleType;
+
+import java.util.Locale;
+import java.util.UUID;
+
+/**
+ * The searchable fields of an account, normalized and captured at the moment of the change
+ */
+public record IndexedAccount(UUID id, RoleType role, String text, boolean deleted) {
+
+    // Joins fields so no keyword can match across a field boundary
+    private static final char FIELD_SEPARATOR = '\u0000';
+
+    public static IndexedAccount of(Account account) {
+        String text = normalize(account.getUsername()) + FIELD_SEPARATOR
+                + normalize(account.getEmail()) + FIELD_SEPARATOR
+                + normalize(account.getPhone());
+        return new IndexedAccount(account.getId(), account.getRole(), text, account.getDeletedAt() != null);
+    }
+
+    static String normalize(String value) {
+        return value != null ? value.trim().toLowerCase(Locale.ROOT) : "";
+    }
+}
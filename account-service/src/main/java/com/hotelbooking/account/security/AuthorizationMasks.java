@@ -0,0 +1,60 @@
+package com.hotelbooking.account.security;
+
+import com.hotelbooking.account.enums.Permission;
+import com.hotelbooking.account.enums.RoleType;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.GrantedAuthority;
+
+/**
+ * Permission and role masks of an authenticated caller, shared by the AOP aspects and the gRPC interceptor
+ */
+public final class AuthorizationMasks {
+
+    private static final String PERMISSION_PREFIX = "PERMISSION_";
+    private static final String ROLE_PREFIX = "ROLE_";
+
+    private AuthorizationMasks() {
+    }
+
+    public static long permissionMaskOf(Authentication authentication) {
+        if (authentication.getPrincipal() instanceof CustomUserPrincipal principal) {
+            return principal.getPermissionMask();
+        }
+        // Other principal types only carry authorities
+        long mask = 0L;
+        for (GrantedAuthority authority : authentication.getAuthorities()) {
+            String name = authority.getAuthority();
+            if (name.startsWith(PERMISSION_PREFIX)) {
+                Permission permission = Permission.fromName(name.substring(PERMISSION_PREFIX.length()));
+                if (permission != null) {
+                    mask |= permission.mask();
+                }
+            }
+        }
+        return mask;
+    }
+
+    /**
+     * The caller's role, or null if the authentication carries none
+     */
+    public static RoleType roleOf(Authentication authentication) {
+        if (authentication.getPrincipal() instanceof CustomUserPrincipal principal) {
+            return principal.getAccount().getRole();
+        }
+        return authentication.getAuthorities().stream()
+                .map(GrantedAuthority::getAuthority)
+                .filter(authority -> authority.startsWith(ROLE_PREFIX))
+                .map(authority -> authority.substring(ROLE_PREFIX.length())) // Bỏ prefix "ROLE_"
+                .findFirst()
+                .map(RoleType::valueOf)
+                .orElse(null);
+    }
+
+    public static int roleMaskOf(RoleType... roles) {
+        int mask = 0;
+        for (RoleType role : roles) {
+            mask |= role.mask();
+        }
+        return mask;
+    }
+}
@@ -0,0 +1,90 @@
+package com.hotelbooking.account.security;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.web.util.matcher.IpAddressMatcher;
+import org.springframework.stereotype.Component;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Works out which client a request came from, for per-client login throttling.
+ *
+ * <p>X-Forwarded-For is only believed when the direct peer is one of security.trusted-proxies
+ * (addresses or CIDR ranges, by default loopback and the private ranges the gateway runs in).
+ * Each proxy appends the address it received the request from, so the list is read right to left
+ * and the first hop that is not a trusted proxy is the client; everything left of it is whatever
+ * the caller chose to send. A trusted peer that forwards no untrusted hop yields null, and the
+ * request is then throttled by email only rather than sharing one bucket with every other user.
+ */
+@Component
+public class ClientAddressResolver {
+
+    private final List<IpAddressMatcher> trustedProxies;
+
+    public ClientAddressResolver(@Value("${security.trusted-proxies:127.0.0.0/8,::1,10.0.0.0/8,172.16.0.0/12,192.168.0.0/16}")
+                                 String[] trustedProxies) {
+        this.trustedProxies = Arrays.stream(trustedProxies)
+            .map(String::trim)
+            .filter(proxy -> !proxy.isEmpty())
+            .map(IpAddressMatcher::new)
+            .toList();
+    }
+
+    /**
+     * @param remoteAddress address of the direct peer
+     * @param forwardedFor  X-Forwarded-For value, may be null
+     * @return the client address, or null if it cannot be told apart from the proxies
+     */
+    public String resolve(String remoteAddress, String forwardedFor) {
+        if (!isTrustedProxy(remoteAddress)) {
+            return remoteAddress;
+        }
+        if (forwardedFor == null || forwardedFor.isBlank()) {
+            return null;
+        }
+        String[] hops = forwardedFor.split(",");
+        for (int i = hops.length - 1; i >= 0; i--) {
+            String hop = hops[i].trim();
+            if (!hop.isEmpty() && !isTrustedProxy(hop)) {
+                return hop;
+            }
+        }
+        return null;
+    }
+
+    private boolean isTrustedProxy(String address) {
+        // Only IP literals are matched, so a forged header can never trigger a DNS lookup
+        if (address == null || !isIpLiteral(address)) {
+            return false;
+        }
+        try {
+            for (IpAddressMatcher proxy : trustedProxies) {
+                if (proxy.matches(address)) {
+                    return true;
+                }
+            }
+        } catch (IllegalArgumentException e) {
+            return false; // Malformed IPv6 literal
+        }
+        return false;
+    }
+
+    // Dotted-quad IPv4, or anything with a colon, which InetAddress only ever parses as an IPv6 literal
+    private static boolean isIpLiteral(String address) {
+        if (address.indexOf(':') >= 0) {
+            return address.length() <= 45;
+        }
+        String[] octets = address.split("\\.", -1);
+        if (octets.length != 4) {
+            return false;
+        }
+        for (String octet : octets) {
+            if (octet.isEmpty() || octet.length() > 3 || !octet.chars().allMatch(c -> c >= '0' && c <= '9')
+                    || Integer.parseInt(octet) > 255) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
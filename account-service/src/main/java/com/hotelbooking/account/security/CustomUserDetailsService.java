@@ -1,48 +1,142 @@
 package com.hotelbooking.account.security;
 
+import com.hotelbooking.account.cache.BoundedExpiringCache;
 import com.hotelbooking.account.entity.Account;
 import com.hotelbooking.account.enums.RolePermissions;
+import com.hotelbooking.account.enums.RoleType;
 import com.hotelbooking.account.repository.AccountRepository;
-import lombok.RequiredArgsConstructor;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.core.GrantedAuthority;
 import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 
 import java.util.Collection;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.HashSet;
+import java.util.Map;
 import java.util.Set;
 import java.util.stream.Collectors;
 
 @Service
-@RequiredArgsConstructor
 public class CustomUserDetailsService implements UserDetailsService {
 
+    // Authorities depend only on the role, so they are built once per role
+    private static final Map<RoleType, Set<GrantedAuthority>> AUTHORITIES_BY_ROLE = buildAuthoritiesByRole();
+
     private final AccountRepository accountRepository;
+    private final BoundedExpiringCache<String, CustomUserPrincipal> principalCache;
+    private final boolean cacheEnabled;
+    private final long cacheTtlMs;
+
+    // When set, authenticated requests build the principal from verified claims and never hit the database
+    @Value("${security.auth.trust-token-claims:false}")
+    private boolean trustTokenClaims;
+
+    public CustomUserDetailsService(AccountRepository accountRepository,
+                                    MeterRegistry meterRegistry,
+                                    @Value("${security.principal-cache.enabled:true}") boolean cacheEnabled,
+                                    @Value("${security.principal-cache.max-size:10000}") int cacheMaxSize,
+                                    @Value("${security.principal-cache.ttl-ms:60000}") long cacheTtlMs) {
+        this.accountRepository = accountRepository;
+        this.cacheEnabled = cacheEnabled;
+        this.cacheTtlMs = cacheTtlMs;
+        this.principalCache = new BoundedExpiringCache<>(cacheMaxSize);
+        this.principalCache.bindTo(meterRegistry, "security.principal.cache");
+    }
 
     @Override
     public UserDetails loadUserByUsername(String username) throws UsernameNotFoundException {
+        if (cacheEnabled) {
+            CustomUserPrincipal cached = principalCache.get(username);
+            if (cached != null) {
+                return cached;
+            }
+        }
+
         Account account = accountRepository.findByUsernameAndDeletedAtIsNull(username)
                 .orElseThrow(() -> new UsernameNotFoundException("User not found: " + username));
 
+        return buildPrincipal(account);
+    }
+
+    /**
+     * Resolve the principal for a verified access token. In claims-trust mode the principal is built
+     * from the token's userId and role claims; revoked or deleted users are caught by the
+     * revocation watermark check that runs before this. Otherwise the account is loaded by username.
+     */
+    public UserDetails loadUserByToken(VerifiedToken verifiedToken) throws UsernameNotFoundException {
+        if (trustTokenClaims && verifiedToken.getUserId() != null && verifiedToken.getRole() != null) {
+            try {
+                return principalFromClaims(verifiedToken);
+            } catch (IllegalArgumentException e) {
+                // Unknown role claim, fall back to the database
+            }
+        }
+        return loadUserByUsername(verifiedToken.getSubject());
+    }
+
+    /**
+     * Build the principal for an account the caller has already loaded, and cache it
+     */
+    public CustomUserPrincipal buildPrincipal(Account account) {
+        CustomUserPrincipal principal = new CustomUserPrincipal(account, getAuthorities(account));
+        if (cacheEnabled && account.getDeletedAt() == null) {
+            principalCache.put(account.getUsername(), principal, System.currentTimeMillis() + cacheTtlMs);
+        }
+        return principal;
+    }
+
+    /**
+     * Drop the cached principal after the account changed
+     */
+    public void evict(String username) {
+        principalCache.invalidate(username);
+    }
+
+    @Scheduled(fixedDelayString = "${security.principal-cache.sweep-interval-ms:60000}")
+    public void evictExpired() {
+        principalCache.evictExpired();
+    }
+
+    private CustomUserPrincipal principalFromClaims(VerifiedToken verifiedToken) {
+        // Detached stand-in carrying only what the token asserts; never persisted
+        Account account = new Account();
+        account.setId(verifiedToken.getUserId());
+        account.setUsername(verifiedToken.getSubject());
+        account.setEmail(verifiedToken.getEmail());
+        account.setRole(RoleType.valueOf(verifiedToken.getRole().toUpperCase()));
+        account.setIsActive(true);
         return new CustomUserPrincipal(account, getAuthorities(account));
     }
 
     private Collection<? extends GrantedAuthority> getAuthorities(Account account) {
-        String roleName = account.getRole().getRoleName(); // Get role name from enum
+        return AUTHORITIES_BY_ROLE.get(account.getRole());
+    }
+
+    private static Map<RoleType, Set<GrantedAuthority>> buildAuthoritiesByRole() {
+        Map<RoleType, Set<GrantedAuthority>> byRole = new EnumMap<>(RoleType.class);
+        for (RoleType role : RoleType.values()) {
+            String roleName = role.getRoleName();
 
-        // Lấy permissions từ enum dựa trên role name
-        Set<String> permissions = RolePermissions.getPermissionsByRoleName(roleName);
+            // Lấy permissions từ enum dựa trên role name
+            Set<String> permissions = RolePermissions.getPermissionsByRoleName(roleName);
 
-        // Convert permissions thành GrantedAuthority
-        Set<GrantedAuthority> authorities = permissions.stream()
-                .map(permission -> new SimpleGrantedAuthority("PERMISSION_" + permission))
-                .collect(Collectors.toSet());
+            // Convert permissions thành GrantedAuthority
+            Set<GrantedAuthority> authorities = permissions.stream()
+                    .map(permission -> new SimpleGrantedAuthority("PERMISSION_" + permission))
+                    .collect(Collectors.toCollection(HashSet::new));
 
-        // Thêm role authority
-        authorities.add(new SimpleGrantedAuthority("ROLE_" + roleName));
+            // Thêm role authority
+            authorities.add(new SimpleGrantedAuthority("ROLE_" + roleName));
 
-        return authorities;
+            byRole.put(role, Collections.unmodifiableSet(authorities));
+        }
+        return byRole;
     }
 }
@@ -1,23 +1,33 @@
 package com.hotelbooking.account.security;
 
 import com.hotelbooking.account.entity.Account;
+import com.hotelbooking.account.enums.Permission;
 import com.hotelbooking.account.enums.RolePermissions;
 import lombok.Getter;
-import lombok.RequiredArgsConstructor;
 import org.springframework.security.core.GrantedAuthority;
 import org.springframework.security.core.userdetails.UserDetails;
 
 import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
 import java.util.Set;
 import java.util.UUID;
 
-@RequiredArgsConstructor
 @Getter
 public class CustomUserPrincipal implements UserDetails {
 
     private final Account account;
     private final Collection<? extends GrantedAuthority> authorities;
 
+    // Precomputed from the role so permission checks are a single bitwise AND
+    private final long permissionMask;
+
+    public CustomUserPrincipal(Account account, Collection<? extends GrantedAuthority> authorities) {
+        this.account = account;
+        this.authorities = authorities;
+        this.permissionMask = RolePermissions.of(account.getRole()).getPermissionMask();
+    }
+
     @Override
     public Collection<? extends GrantedAuthority> getAuthorities() {
         return authorities;
@@ -72,8 +82,8 @@ public class CustomUserPrincipal implements UserDetails {
 
     // Permission checking methods for microservice interactions
     public boolean hasPermission(String permission) {
-        return authorities.stream()
-                .anyMatch(auth -> auth.getAuthority().equals("PERMISSION_" + permission));
+        Permission resolved = Permission.fromName(permission);
+        return resolved != null && (permissionMask & resolved.mask()) != 0;
     }
 
     public boolean hasAnyPermission(String... permissions) {
@@ -111,11 +121,24 @@ public class CustomUserPrincipal implements UserDetails {
     }
 
     // Method to create JWT claims for microservice communication
-    public java.util.Map<String, Object> getJwtClaims() {
-        return java.util.Map.of(
-            "userId", getUserId().toString(), // Convert UUID to String for JWT serialization
-            "role", getRoleName(),
-            "permissions", getAllPermissions()
-        );
+    public Map<String, Object> getJwtClaims() {
+        return getJwtClaims(PermissionClaimFormat.VERBOSE);
+    }
+
+    public Map<String, Object> getJwtClaims(PermissionClaimFormat format) {
+        Map<String, Object> claims = new HashMap<>();
+        claims.put("userId", getUserId().toString()); // Convert UUID to String for JWT serialization
+        if (getEmail() != null) {
+            claims.put(VerifiedToken.EMAIL_CLAIM, getEmail()); // Lets claims-trust mode fill in the principal's email
+        }
+        claims.put("role", getRoleName());
+        if (format.writesVerbose()) {
+            claims.put(PermissionClaimFormat.PERMISSIONS_CLAIM, getAllPermissions());
+        }
+        if (format.writesCompact()) {
+            claims.put(PermissionClaimFormat.MASK_VERSION_CLAIM, Permission.MASK_VERSION);
+            claims.put(PermissionClaimFormat.MASK_CLAIM, Long.toHexString(permissionMask));
+        }
+        return claims;
     }
 }
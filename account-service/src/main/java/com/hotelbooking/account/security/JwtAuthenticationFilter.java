@@ -11,7 +11,6 @@ import org.springframework.lang.NonNull;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.core.userdetails.UserDetails;
-import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.web.authentication.WebAuthenticationDetailsSource;
 import org.springframework.stereotype.Component;
 import org.springframework.web.filter.OncePerRequestFilter;
@@ -23,7 +22,7 @@ import java.io.IOException;
 public class JwtAuthenticationFilter extends OncePerRequestFilter {
 
     private final JwtService jwtService;
-    private final UserDetailsService userDetailsService;
+    private final CustomUserDetailsService userDetailsService;
     private final BlacklistTokenService blacklistTokenService;
 
     @Override
@@ -42,21 +41,25 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
         }
 
         jwt = authHeader.substring(7);
+
+        // Verify the token once and reuse the claims for every check below
+        final VerifiedToken verifiedToken = jwtService.verify(jwt);
         
-        // Check if token is blacklisted
-        if (blacklistTokenService.isTokenBlacklisted(jwt)) {
+        // Check if token is blacklisted or its user revoked all tokens
+        if (blacklistTokenService.isTokenRevoked(jwt, verifiedToken)) {
             response.setStatus(HttpServletResponse.SC_UNAUTHORIZED);
             response.getWriter().write("{\"error\": \"Token has been revoked\", \"success\": false, \"statusCode\": 401}");
             response.setContentType("application/json");
             return;
         }
         
-        username = jwtService.extractUsername(jwt);
+        username = verifiedToken.getSubject();
 
         if (username != null && SecurityContextHolder.getContext().getAuthentication() == null) {
-            UserDetails userDetails = this.userDetailsService.loadUserByUsername(username);
+            // Load user details, from the token claims alone in claims-trust mode
+            UserDetails userDetails = this.userDetailsService.loadUserByToken(verifiedToken);
 
-            if (jwtService.isTokenValid(jwt, userDetails)) {
+            if (jwtService.isTokenValid(verifiedToken, userDetails)) {
                 UsernamePasswordAuthenticationToken authToken = new UsernamePasswordAuthenticationToken(
                         userDetails,
                         null,
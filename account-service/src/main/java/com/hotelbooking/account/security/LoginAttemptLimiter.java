@@ -0,0 +1,172 @@
+package com.hotelbooking.account.security;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * In-memory failed-login tracker keyed by email and by calling client. Once either key crosses
+ * its threshold within the sliding window, further attempts are rejected for the cooldown period
+ * without touching the database or the password hasher.
+ *
+ * <p>Each key owns its own small window object, so updates only contend on the same key and the
+ * blocked check on the hot path is a single volatile read.
+ */
+@Component
+public class LoginAttemptLimiter {
+
+    private final boolean enabled;
+    private final int maxFailuresPerEmail;
+    private final int maxFailuresPerClient;
+    private final long windowMs;
+    private final long cooldownMs;
+    private final int maxTrackedKeys;
+
+    private final Map<String, FailureWindow> byEmail = new ConcurrentHashMap<>();
+    private final Map<String, FailureWindow> byClient = new ConcurrentHashMap<>();
+
+    private final Counter throttledByEmail;
+    private final Counter throttledByClient;
+
+    public LoginAttemptLimiter(@Value("${security.login-throttle.enabled:true}") boolean enabled,
+                               @Value("${security.login-throttle.max-failures-per-email:5}") int maxFailuresPerEmail,
+                               @Value("${security.login-throttle.max-failures-per-client:100}") int maxFailuresPerClient,
+                               @Value("${security.login-throttle.window-ms:900000}") long windowMs,
+                               @Value("${security.login-throttle.cooldown-ms:900000}") long cooldownMs,
+                               @Value("${security.login-throttle.max-tracked-keys:100000}") int maxTrackedKeys,
+                               MeterRegistry meterRegistry) {
+        this.enabled = enabled;
+        this.maxFailuresPerEmail = maxFailuresPerEmail;
+        this.maxFailuresPerClient = maxFailuresPerClient;
+        this.windowMs = windowMs;
+        this.cooldownMs = cooldownMs;
+        this.maxTrackedKeys = maxTrackedKeys;
+
+        this.throttledByEmail = Counter.builder("security.login.throttled").tag("scope", "email").register(meterRegistry);
+        this.throttledByClient = Counter.builder("security.login.throttled").tag("scope", "client").register(meterRegistry);
+        Gauge.builder("security.login.throttle.keys", this, l -> l.byEmail.size() + l.byClient.size()).register(meterRegistry);
+    }
+
+    /**
+     * Reject the attempt if the email or the client is currently cooling down
+     */
+    public void checkAllowed(String email, String client) {
+        if (!enabled) {
+            return;
+        }
+        long now = System.currentTimeMillis();
+        long emailBlockedFor = remainingBlock(byEmail, normalize(email), now);
+        if (emailBlockedFor > 0) {
+            throttledByEmail.increment();
+            throw new LoginThrottledException(Duration.ofMillis(emailBlockedFor));
+        }
+        long clientBlockedFor = remainingBlock(byClient, client, now);
+        if (clientBlockedFor > 0) {
+            throttledByClient.increment();
+            throw new LoginThrottledException(Duration.ofMillis(clientBlockedFor));
+        }
+    }
+
+    public void recordFailure(String email, String client) {
+        if (!enabled) {
+            return;
+        }
+        long now = System.currentTimeMillis();
+        recordFailure(byEmail, normalize(email), maxFailuresPerEmail, now);
+        recordFailure(byClient, client, maxFailuresPerClient, now);
+    }
+
+    /**
+     * A successful login clears the email's history; the client's is kept, since a
+     * credential-stuffing client will also hit the occasional valid password
+     */
+    public void recordSuccess(String email) {
+        if (enabled && email != null) {
+            byEmail.remove(normalize(email));
+        }
+    }
+
+    /**
+     * Forget keys that have neither recent failures nor an active cooldown
+     */
+    @Scheduled(fixedDelayString = "${security.login-throttle.sweep-interval-ms:60000}")
+    public void evictIdle() {
+        long now = System.currentTimeMillis();
+        byEmail.values().removeIf(window -> window.isIdle(now));
+        byClient.values().removeIf(window -> window.isIdle(now));
+    }
+
+    private long remainingBlock(Map<String, FailureWindow> windows, String key, long now) {
+        if (key == null) {
+            return 0;
+        }
+        FailureWindow window = windows.get(key);
+        return window != null ? window.blockedUntil - now : 0;
+    }
+
+    private void recordFailure(Map<String, FailureWindow> windows, String key, int threshold, long now) {
+        if (key == null) {
+            return;
+        }
+        FailureWindow window = windows.get(key);
+        if (window == null) {
+            // Under a spray of distinct keys, stop tracking new ones rather than grow without bound
+            if (windows.size() >= maxTrackedKeys) {
+                return;
+            }
+            window = windows.computeIfAbsent(key, k -> new FailureWindow());
+        }
+        window.recordFailure(now, threshold);
+    }
+
+    private static String normalize(String email) {
+        return email != null ? email.trim().toLowerCase(Locale.ROOT) : null;
+    }
+
+    /**
+     * Sliding-window counter approximated from the current and previous fixed windows,
+     * weighting the previous one by how much of it still overlaps the sliding window
+     */
+    private final class FailureWindow {
+        private long currentStart;
+        private int currentCount;
+        private int previousCount;
+        private volatile long blockedUntil;
+
+        private synchronized void recordFailure(long now, int threshold) {
+            roll(now);
+            currentCount++;
+            double overlap = 1.0 - (double) (now - currentStart) / windowMs;
+            double failures = previousCount * overlap + currentCount;
+            if (failures >= threshold) {
+                blockedUntil = now + cooldownMs;
+            }
+        }
+
+        private synchronized boolean isIdle(long now) {
+            roll(now);
+            return blockedUntil <= now && currentCount == 0 && previousCount == 0;
+        }
+
+        private void roll(long now) {
+            long elapsedWindows = (now - currentStart) / windowMs;
+            if (elapsedWindows == 1) {
+                previousCount = currentCount;
+                currentCount = 0;
+                currentStart += windowMs;
+            } else if (elapsedWindows > 1) {
+                previousCount = 0;
+                currentCount = 0;
+                currentStart = now - (now % windowMs);
+            }
+        }
+    }
+}
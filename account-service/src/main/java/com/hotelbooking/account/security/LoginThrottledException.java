@@ -0,0 +1,20 @@
+package com.hotelbooking.account.security;
+
+import java.time.Duration;
+
+/**
+ * Thrown when a login attempt is rejected by {@link LoginAttemptLimiter} before any credential check
+ */
+public class LoginThrottledException extends RuntimeException {
+
+    private final Duration retryAfter;
+
+    public LoginThrottledException(Duration retryAfter) {
+        super("Too many failed login attempts. Please try again later.");
+        this.retryAfter = retryAfter;
+    }
+
+    public Duration getRetryAfter() {
+        return retryAfter;
+    }
+}
@@ -0,0 +1,64 @@
+package com.hotelbooking.account.security;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.DelegatingPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.util.Map;
+
+/**
+ * Builds the id-prefixed delegating encoder ("{bcrypt}$2a$...") and picks the BCrypt cost.
+ * Hashes stored before the prefix was introduced are still verified as plain BCrypt and are
+ * reported as needing an upgrade, as are hashes made with a lower cost than the current one.
+ */
+@Slf4j
+public final class PasswordEncoderFactory {
+
+    public static final String BCRYPT_ID = "bcrypt";
+
+    // Spring's default cost; calibration never goes below it
+    static final int MIN_STRENGTH = 10;
+    static final int MAX_STRENGTH = 16;
+
+    private static final String CALIBRATION_PASSWORD = "calibration-password";
+    private static final int CALIBRATION_ROUNDS = 3;
+
+    private PasswordEncoderFactory() {
+    }
+
+    public static PasswordEncoder create(int strength) {
+        Map<String, PasswordEncoder> encoders = Map.of(BCRYPT_ID, new BCryptPasswordEncoder(strength));
+        DelegatingPasswordEncoder encoder = new DelegatingPasswordEncoder(BCRYPT_ID, encoders);
+        // Legacy hashes carry no {id}; BCrypt reads the cost from the hash itself
+        encoder.setDefaultPasswordEncoderForMatches(new BCryptPasswordEncoder());
+        return encoder;
+    }
+
+    /**
+     * Highest BCrypt cost whose hash time on this host stays within the target.
+     * Each step doubles the work, so one measurement at the minimum cost is enough to extrapolate.
+     */
+    public static int calibrateStrength(long targetMillis, int maxStrength) {
+        int ceiling = Math.min(Math.max(maxStrength, MIN_STRENGTH), MAX_STRENGTH);
+        BCryptPasswordEncoder probe = new BCryptPasswordEncoder(MIN_STRENGTH);
+        probe.encode(CALIBRATION_PASSWORD); // warm up
+
+        long best = Long.MAX_VALUE;
+        for (int i = 0; i < CALIBRATION_ROUNDS; i++) {
+            long start = System.nanoTime();
+            probe.encode(CALIBRATION_PASSWORD);
+            best = Math.min(best, System.nanoTime() - start);
+        }
+
+        double estimateMillis = best / 1_000_000.0;
+        int strength = MIN_STRENGTH;
+        while (strength < ceiling && estimateMillis * 2 <= targetMillis) {
+            estimateMillis *= 2;
+            strength++;
+        }
+        log.info("Calibrated BCrypt cost to {} (~{} ms per hash, target {} ms)",
+                strength, Math.round(estimateMillis), targetMillis);
+        return strength;
+    }
+}
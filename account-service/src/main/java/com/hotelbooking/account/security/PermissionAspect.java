@@ -1,38 +1,45 @@
 package com.hotelbooking.account.security;
 
+import com.hotelbooking.account.enums.Permission;
 import lombok.RequiredArgsConstructor;
+import org.aspectj.lang.JoinPoint;
 import org.aspectj.lang.annotation.Aspect;
 import org.aspectj.lang.annotation.Before;
+import org.aspectj.lang.reflect.MethodSignature;
 import org.springframework.security.access.AccessDeniedException;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Component;
 
+import java.lang.reflect.Method;
 import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 @Aspect
 @Component
 @RequiredArgsConstructor
 public class PermissionAspect {
 
-    @Before("@annotation(requirePermission)")
-    public void checkPermission(RequirePermission requirePermission) {
+    // Annotation values resolved to a permission mask once per method
+    private final Map<Method, Long> requiredMasks = new ConcurrentHashMap<>();
+
+    // gRPC services are checked by JwtAuthenticationInterceptor's policy table instead
+    @Before("@annotation(requirePermission) && !@within(net.devh.boot.grpc.server.service.GrpcService)")
+    public void checkPermission(JoinPoint joinPoint, RequirePermission requirePermission) {
         Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
 
         if (authentication == null || !authentication.isAuthenticated()) {
             throw new AccessDeniedException("User not authenticated");
         }
 
-        String[] requiredPermissions = requirePermission.value();
+        Method method = ((MethodSignature) joinPoint.getSignature()).getMethod();
+        long requiredMask = requiredMasks.computeIfAbsent(method, m -> Permission.maskOf(requirePermission.value()));
 
         // Kiểm tra xem user có ít nhất một trong các permission yêu cầu không
-        boolean hasRequiredPermission = Arrays.stream(requiredPermissions)
-                .anyMatch(permission -> authentication.getAuthorities().stream()
-                        .anyMatch(authority -> authority.getAuthority().equals("PERMISSION_" + permission)));
-
-        if (!hasRequiredPermission) {
+        if ((AuthorizationMasks.permissionMaskOf(authentication) & requiredMask) == 0) {
             throw new AccessDeniedException("User does not have required permission(s): " +
-                    Arrays.toString(requiredPermissions));
+                    Arrays.toString(requirePermission.value()));
         }
     }
 }
@@ -0,0 +1,27 @@
+package com.hotelbooking.account.security;
+
+/**
+ * How permissions are written into issued access tokens.
+ * <ul>
+ *   <li>VERBOSE - the {@code permissions} array of names, as before</li>
+ *   <li>COMPACT - a hex bitmask in {@code pm} plus its layout version in {@code pv}</li>
+ *   <li>BOTH - both claims, for rollouts where some downstream services still read the array</li>
+ * </ul>
+ */
+public enum PermissionClaimFormat {
+    VERBOSE,
+    COMPACT,
+    BOTH;
+
+    public static final String PERMISSIONS_CLAIM = "permissions";
+    public static final String MASK_CLAIM = "pm";
+    public static final String MASK_VERSION_CLAIM = "pv";
+
+    public boolean writesVerbose() {
+        return this != COMPACT;
+    }
+
+    public boolean writesCompact() {
+        return this != VERBOSE;
+    }
+}
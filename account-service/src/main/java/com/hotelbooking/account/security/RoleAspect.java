@@ -1,42 +1,51 @@
 package com.hotelbooking.account.security;
 
+import com.hotelbooking.account.enums.RoleType;
 import lombok.RequiredArgsConstructor;
+import org.aspectj.lang.JoinPoint;
 import org.aspectj.lang.annotation.Aspect;
 import org.aspectj.lang.annotation.Before;
+import org.aspectj.lang.reflect.MethodSignature;
 import org.springframework.security.access.AccessDeniedException;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Component;
 
+import java.lang.reflect.Method;
 import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 @Aspect
 @Component
 @RequiredArgsConstructor
 public class RoleAspect {
 
-    @Before("@annotation(requireRole)")
-    public void checkRole(RequireRole requireRole) {
+    // Allowed roles resolved to a role mask once per method
+    private final Map<Method, Integer> allowedMasks = new ConcurrentHashMap<>();
+
+    // gRPC services are checked by JwtAuthenticationInterceptor's policy table instead
+    @Before("@annotation(requireRole) && !@within(net.devh.boot.grpc.server.service.GrpcService)")
+    public void checkRole(JoinPoint joinPoint, RequireRole requireRole) {
         Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
 
         if (authentication == null || !authentication.isAuthenticated()) {
             throw new AccessDeniedException("User not authenticated");
         }
 
+        Method method = ((MethodSignature) joinPoint.getSignature()).getMethod();
+        int allowedMask = allowedMasks.computeIfAbsent(method, m -> AuthorizationMasks.roleMaskOf(requireRole.value()));
+
         // Lấy role hiện tại của user
-        String currentRole = authentication.getAuthorities().stream()
-                .filter(authority -> authority.getAuthority().startsWith("ROLE_"))
-                .map(authority -> authority.getAuthority().substring(5)) // Bỏ prefix "ROLE_"
-                .findFirst()
-                .orElseThrow(() -> new AccessDeniedException("User has no role"));
+        RoleType currentRole = AuthorizationMasks.roleOf(authentication);
+        if (currentRole == null) {
+            throw new AccessDeniedException("User has no role");
+        }
 
         // Kiểm tra xem role hiện tại có trong danh sách allowed roles không
-        boolean hasRequiredRole = Arrays.stream(requireRole.value())
-                .anyMatch(roleType -> roleType.getRoleName().equals(currentRole));
-
-        if (!hasRequiredRole) {
+        if ((currentRole.mask() & allowedMask) == 0) {
             throw new AccessDeniedException("User does not have required role. Required: " +
-                    Arrays.toString(requireRole.value()) + ", Current: " + currentRole);
+                    Arrays.toString(requireRole.value()) + ", Current: " + currentRole.getRoleName());
         }
     }
 }
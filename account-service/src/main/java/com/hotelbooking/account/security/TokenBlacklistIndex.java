@@ -0,0 +1,88 @@
+package com.hotelbooking.account.security;
+
+import com.hotelbooking.account.cache.BloomFilter;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * In-memory copy of the token blacklist with a Bloom filter in front.
+ * The database stays the source of truth; this index only answers reads.
+ */
+@Component
+public class TokenBlacklistIndex {
+
+    private final Map<String, Instant> entries = new ConcurrentHashMap<>();
+    private final Object writeLock = new Object();
+    private final int expectedInsertions;
+    private final double falsePositiveRate;
+
+    private volatile BloomFilter bloomFilter;
+    private volatile boolean loaded;
+
+    public TokenBlacklistIndex(@Value("${jwt.blacklist.bloom.expected-insertions:100000}") int expectedInsertions,
+                               @Value("${jwt.blacklist.bloom.false-positive-rate:0.01}") double falsePositiveRate) {
+        this.expectedInsertions = expectedInsertions;
+        this.falsePositiveRate = falsePositiveRate;
+        this.bloomFilter = new BloomFilter(expectedInsertions, falsePositiveRate);
+    }
+
+    /**
+     * Whether the index has been populated from the database yet
+     */
+    public boolean isLoaded() {
+        return loaded;
+    }
+
+    public void markLoaded() {
+        this.loaded = true;
+    }
+
+    public boolean contains(String key) {
+        if (!bloomFilter.mightContain(key)) {
+            return false;
+        }
+        Instant expiresAt = entries.get(key);
+        return expiresAt != null && expiresAt.isAfter(Instant.now());
+    }
+
+    public void add(String key, Instant expiresAt) {
+        synchronized (writeLock) {
+            entries.put(key, expiresAt);
+            bloomFilter.put(key);
+        }
+    }
+
+    /**
+     * Drop expired entries and rebuild the Bloom filter, which cannot delete bits on its own
+     */
+    public int removeExpired(Instant now) {
+        synchronized (writeLock) {
+            int removed = 0;
+            for (Iterator<Instant> it = entries.values().iterator(); it.hasNext(); ) {
+                if (!it.next().isAfter(now)) {
+                    it.remove();
+                    removed++;
+                }
+            }
+            if (removed > 0) {
+                rebuildBloomFilter();
+            }
+            return removed;
+        }
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    private void rebuildBloomFilter() {
+        BloomFilter rebuilt = new BloomFilter(Math.max(expectedInsertions, entries.size() * 2), falsePositiveRate);
+        entries.keySet().forEach(rebuilt::put);
+        this.bloomFilter = rebuilt;
+    }
+}
@@ -0,0 +1,148 @@
+package com.hotelbooking.account.security;
+
+import com.hotelbooking.account.enums.Permission;
+import io.jsonwebtoken.Claims;
+
+import java.time.Instant;
+import java.util.Collection;
+import java.util.Date;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * Immutable view of a JWT whose signature has already been verified.
+ * Built once per request so callers never parse the same token twice.
+ */
+public final class VerifiedToken {
+
+    // Issue time in epoch milliseconds; iat only has second precision
+    public static final String ISSUED_AT_MS_CLAIM = "iat_ms";
+    public static final String EMAIL_CLAIM = "email";
+
+    private final String subject;
+    private final UUID userId;
+    private final String email;
+    private final String role;
+    private final long permissionMask;
+    private final Instant issuedAt;
+    private final Instant expiresAt;
+    private final String jti;
+
+    private VerifiedToken(String subject, UUID userId, String email, String role, long permissionMask,
+                          Instant issuedAt, Instant expiresAt, String jti) {
+        this.subject = subject;
+        this.userId = userId;
+        this.email = email;
+        this.role = role;
+        this.permissionMask = permissionMask;
+        this.issuedAt = issuedAt;
+        this.expiresAt = expiresAt;
+        this.jti = jti;
+    }
+
+    public static VerifiedToken fromClaims(Claims claims) {
+        String userIdStr = claims.get("userId", String.class);
+        return new VerifiedToken(
+            claims.getSubject(),
+            userIdStr != null ? UUID.fromString(userIdStr) : null,
+            claims.get(EMAIL_CLAIM, String.class),
+            claims.get("role", String.class),
+            toPermissionMask(claims),
+            toIssuedAt(claims),
+            toInstant(claims.getExpiration()),
+            claims.getId()
+        );
+    }
+
+    public String getSubject() {
+        return subject;
+    }
+
+    public UUID getUserId() {
+        return userId;
+    }
+
+    // Null for tokens issued before the claim was added
+    public String getEmail() {
+        return email;
+    }
+
+    public String getRole() {
+        return role;
+    }
+
+    // Expanded on demand; authorization checks use the mask directly
+    public Set<String> getPermissions() {
+        return Permission.namesOf(permissionMask);
+    }
+
+    public long getPermissionMask() {
+        return permissionMask;
+    }
+
+    public Instant getIssuedAt() {
+        return issuedAt;
+    }
+
+    public Instant getExpiresAt() {
+        return expiresAt;
+    }
+
+    public String getJti() {
+        return jti;
+    }
+
+    public boolean isExpired() {
+        return expiresAt != null && expiresAt.isBefore(Instant.now());
+    }
+
+    public boolean hasPermission(String permission) {
+        Permission resolved = Permission.fromName(permission);
+        return resolved != null && (permissionMask & resolved.mask()) != 0;
+    }
+
+    public boolean hasAnyPermission(String... requiredPermissions) {
+        for (String permission : requiredPermissions) {
+            if (hasPermission(permission)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Prefer the compact mask claim; fall back to the verbose array for tokens issued
+     * before the switch or with a mask layout this build does not understand
+     */
+    private static long toPermissionMask(Claims claims) {
+        Object version = claims.get(PermissionClaimFormat.MASK_VERSION_CLAIM);
+        Object mask = claims.get(PermissionClaimFormat.MASK_CLAIM);
+        if (mask instanceof String hex && version instanceof Number v && v.intValue() == Permission.MASK_VERSION) {
+            return Long.parseUnsignedLong(hex, 16);
+        }
+        // Jackson deserializes the permissions claim as a List, not a Set
+        if (claims.get(PermissionClaimFormat.PERMISSIONS_CLAIM) instanceof Collection<?> names) {
+            long result = 0L;
+            for (Object name : names) {
+                Permission permission = Permission.fromName(String.valueOf(name));
+                if (permission != null) {
+                    result |= permission.mask();
+                }
+            }
+            return result;
+        }
+        return 0L;
+    }
+
+    // Tokens minted before iat_ms was added fall back to the whole-second iat
+    private static Instant toIssuedAt(Claims claims) {
+        if (claims.get(ISSUED_AT_MS_CLAIM) instanceof Number millis) {
+            return Instant.ofEpochMilli(millis.longValue());
+        }
+        return toInstant(claims.getIssuedAt());
+    }
+
+    private static Instant toInstant(Date date) {
+        return date != null ? date.toInstant() : null;
+    }
+}
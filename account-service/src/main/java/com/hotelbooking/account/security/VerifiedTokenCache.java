@@ -0,0 +1,63 @@
+package com.hotelbooking.account.security;
+
+import com.hotelbooking.account.cache.BoundedExpiringCache;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.function.Function;
+
+/**
+ * Caches verified tokens by SHA-256 digest so repeated presentations of the same
+ * access token skip RSA verification. Entries expire at the token's own exp claim.
+ */
+@Component
+public class VerifiedTokenCache {
+
+    private final boolean enabled;
+    private final BoundedExpiringCache<String, VerifiedToken> cache;
+
+    public VerifiedTokenCache(@Value("${jwt.verify-cache.enabled:true}") boolean enabled,
+                              @Value("${jwt.verify-cache.max-size:10000}") int maxSize,
+                              MeterRegistry meterRegistry) {
+        this.enabled = enabled;
+        this.cache = new BoundedExpiringCache<>(maxSize);
+        this.cache.bindTo(meterRegistry, "jwt.verify.cache");
+    }
+
+    /**
+     * Return the cached view of the token, or verify it with the given function and cache the result
+     */
+    public VerifiedToken getOrVerify(String token, Function<String, VerifiedToken> verifier) {
+        if (!enabled) {
+            return verifier.apply(token);
+        }
+        String key = TokenHashing.sha256Hex(token);
+        VerifiedToken cached = cache.get(key);
+        if (cached != null) {
+            return cached;
+        }
+        VerifiedToken verifiedToken = verifier.apply(token);
+        if (verifiedToken.getExpiresAt() != null) {
+            cache.put(key, verifiedToken, verifiedToken.getExpiresAt().toEpochMilli());
+        }
+        return verifiedToken;
+    }
+
+    public void invalidate(String token) {
+        if (enabled) {
+            cache.invalidate(TokenHashing.sha256Hex(token));
+        }
+    }
+
+    /**
+     * Drop expired entries so idle tokens do not hold cache slots until the next put
+     */
+    @Scheduled(fixedDelayString = "${jwt.verify-cache.sweep-interval-ms:60000}")
+    public void evictExpired() {
+        if (enabled) {
+            cache.evictExpired();
+        }
+    }
+}
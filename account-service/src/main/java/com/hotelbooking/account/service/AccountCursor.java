@@ -0,0 +1,125 @@
+package com.hotelbooking.account.service;
+
+import com.hotelbooking.account.entity.Account;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.Path;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import org.springframework.data.domain.Sort;
+
+import java.nio.charset.StandardCharsets;
+import java.time.OffsetDateTime;
+import java.util.Base64;
+import java.util.UUID;
+import java.util.function.Function;
+
+/**
+ * Opaque continuation token for keyset pagination over accounts: the sort column, direction
+ * and the (sortKey, id) of the last row returned. The next page seeks past that row instead
+ * of skipping OFFSET rows, so every page costs the same.
+ */
+public final class AccountCursor {
+
+    /**
+     * Sort columns that support keyset pagination; each is non-null so the seek predicate is total
+     */
+    public enum SortKey {
+        CREATED_AT("createdAt", account -> account.getCreatedAt().toString(), OffsetDateTime::parse),
+        USERNAME("username", Account::getUsername, value -> value),
+        EMAIL("email", Account::getEmail, value -> value);
+
+        private final String property;
+        private final Function<Account, String> extractor;
+        private final Function<String, Comparable<?>> parser;
+
+        SortKey(String property, Function<Account, String> extractor, Function<String, Comparable<?>> parser) {
+            this.property = property;
+            this.extractor = extractor;
+            this.parser = parser;
+        }
+
+        public String getProperty() {
+            return property;
+        }
+
+        public static SortKey fromProperty(String property) {
+            for (SortKey key : values()) {
+                if (key.property.equals(property)) {
+                    return key;
+                }
+            }
+            return null;
+        }
+    }
+
+    private static final String SEPARATOR = "|";
+
+    private final SortKey sortKey;
+    private final Sort.Direction direction;
+    private final UUID lastId;
+    private final String lastValue;
+
+    private AccountCursor(SortKey sortKey, Sort.Direction direction, UUID lastId, String lastValue) {
+        this.sortKey = sortKey;
+        this.direction = direction;
+        this.lastId = lastId;
+        this.lastValue = lastValue;
+    }
+
+    public static AccountCursor after(Account last, SortKey sortKey, Sort.Direction direction) {
+        return new AccountCursor(sortKey, direction, last.getId(), sortKey.extractor.apply(last));
+    }
+
+    public static AccountCursor decode(String token) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            // The value goes last so it may itself contain the separator
+            String[] parts = raw.split("\\|", 4);
+            if (parts.length != 4) {
+                throw new IllegalArgumentException("Invalid cursor");
+            }
+            SortKey sortKey = SortKey.valueOf(parts[0]);
+            return new AccountCursor(sortKey, Sort.Direction.fromString(parts[1]), UUID.fromString(parts[2]), parts[3]);
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Invalid cursor", e);
+        }
+    }
+
+    public String encode() {
+        String raw = sortKey.name() + SEPARATOR + direction.name() + SEPARATOR + lastId + SEPARATOR + lastValue;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public SortKey getSortKey() {
+        return sortKey;
+    }
+
+    public Sort.Direction getDirection() {
+        return direction;
+    }
+
+    /**
+     * Order by the sort column with id as tie-breaker, both in the cursor's direction
+     */
+    public static Sort sortOf(SortKey sortKey, Sort.Direction direction) {
+        return Sort.by(direction, sortKey.property, "id");
+    }
+
+    /**
+     * Rows strictly after the cursor: (sortKey, id) beyond (lastValue, lastId) in the sort direction
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    public Predicate seekPredicate(Root<Account> root, CriteriaBuilder cb) {
+        Path sortPath = root.get(sortKey.property);
+        Path idPath = root.get("id");
+        Comparable value = sortKey.parser.apply(lastValue);
+        if (direction.isAscending()) {
+            return cb.or(
+                    cb.greaterThan(sortPath, value),
+                    cb.and(cb.equal(sortPath, value), cb.greaterThan(idPath, lastId)));
+        }
+        return cb.or(
+                cb.lessThan(sortPath, value),
+                cb.and(cb.equal(sortPath, value), cb.lessThan(idPath, lastId)));
+    }
+}
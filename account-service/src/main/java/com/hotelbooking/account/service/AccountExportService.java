@@ -0,0 +1,96 @@
+package com.hotelbooking.account.service;
+
+import com.hotelbooking.account.dto.AccountDTO;
+import com.hotelbooking.account.entity.Account;
+import com.hotelbooking.account.enums.RoleType;
+import com.hotelbooking.account.repository.AccountRepository;
+import jakarta.annotation.PreDestroy;
+import jakarta.persistence.EntityManager;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Sort;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+/**
+ * Streams accounts from a database cursor in constant memory. Each export runs on its own
+ * thread from a small pool so the caller can wait for a slow consumer without holding a
+ * request thread; each row is detached once handed to the sink.
+ */
+@Service
+public class AccountExportService {
+
+    private final AccountRepository accountRepository;
+    private final EntityManager entityManager;
+    private final TransactionTemplate readOnlyTransaction;
+    private final ExecutorService executor;
+
+    public AccountExportService(AccountRepository accountRepository,
+                                EntityManager entityManager,
+                                PlatformTransactionManager transactionManager,
+                                @Value("${admin.export.max-concurrent:2}") int maxConcurrent) {
+        this.accountRepository = accountRepository;
+        this.entityManager = entityManager;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+
+        // No queue: an export beyond the limit is refused instead of waiting behind the others
+        AtomicInteger threadCounter = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(0, maxConcurrent, 60L, TimeUnit.SECONDS,
+                new SynchronousQueue<>(),
+                runnable -> new Thread(runnable, "account-export-" + threadCounter.incrementAndGet()),
+                new ThreadPoolExecutor.AbortPolicy());
+    }
+
+    /**
+     * Stream non-deleted accounts matching the optional role and keyword, in the given order.
+     * Completes with the number of accounts sent to the sink.
+     */
+    public CompletableFuture<Long> streamUsers(RoleType role, String keyword, Sort sort, Consumer<AccountDTO> sink) {
+        String trimmed = keyword != null && !keyword.isBlank() ? keyword.trim() : null;
+        return submit(() -> accountRepository.streamByRoleAndKeyword(role, trimmed, sort), sink);
+    }
+
+    /**
+     * Stream every account in id order, optionally including soft-deleted ones
+     */
+    public CompletableFuture<Long> exportUsers(boolean includeDeleted, Consumer<AccountDTO> sink) {
+        return submit(() -> accountRepository.streamAllOrderById(includeDeleted), sink);
+    }
+
+    private CompletableFuture<Long> submit(Supplier<Stream<Account>> query, Consumer<AccountDTO> sink) {
+        try {
+            return CompletableFuture.supplyAsync(() -> readOnlyTransaction.execute(status -> {
+                long count = 0;
+                try (Stream<Account> accounts = query.get()) {
+                    for (Account account : (Iterable<Account>) accounts::iterator) {
+                        AccountDTO dto = new AccountDTO(account);
+                        // Keep the persistence context from growing with the export
+                        entityManager.detach(account);
+                        sink.accept(dto);
+                        count++;
+                    }
+                }
+                return count;
+            }), executor);
+        } catch (RejectedExecutionException e) {
+            throw new ExportCapacityExceededException("Too many exports in progress, please try again later");
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+}
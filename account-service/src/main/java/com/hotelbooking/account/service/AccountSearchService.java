@@ -0,0 +1,164 @@
+package com.hotelbooking.account.service;
+
+import com.hotelbooking.account.entity.Account;
+import com.hotelbooking.account.enums.RoleType;
+import com.hotelbooking.account.repository.AccountRepository;
+import com.hotelbooking.account.search.AccountSearchIndex;
+import com.hotelbooking.account.search.IndexedAccount;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.persistence.EntityManager;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.stream.Stream;
+
+/**
+ * Answers admin keyword searches from {@link AccountSearchIndex} and keeps it loaded.
+ * Writes on this instance reach the index on commit; a short incremental sync pulls accounts
+ * other replicas changed, and the periodic rebuild catches anything the sync cannot see.
+ * When the index cannot answer, or has not synced within the staleness bound, callers fall back
+ * to the database.
+ */
+@Slf4j
+@Service
+public class AccountSearchService {
+
+    // Overlap between sync windows so rows committed late, or stamped by a replica whose clock
+    // runs behind, are not missed
+    private static final long SYNC_OVERLAP_MS = 5000;
+
+    private final AccountSearchIndex searchIndex;
+    private final AccountRepository accountRepository;
+    private final EntityManager entityManager;
+    private final TransactionTemplate readOnlyTransaction;
+    private final boolean enabled;
+    private final int maxResults;
+    private final long maxStalenessMs;
+    private final Counter fallbacks;
+
+    // Wall-clock start of the last successful rebuild or sync: every change committed before it is indexed
+    private volatile long syncedUpToMs;
+
+    public AccountSearchService(AccountSearchIndex searchIndex,
+                                AccountRepository accountRepository,
+                                EntityManager entityManager,
+                                PlatformTransactionManager transactionManager,
+                                MeterRegistry meterRegistry,
+                                @Value("${search.index.enabled:true}") boolean enabled,
+                                @Value("${search.index.max-results:5000}") int maxResults,
+                                @Value("${search.index.max-staleness-ms:15000}") long maxStalenessMs) {
+        this.searchIndex = searchIndex;
+        this.accountRepository = accountRepository;
+        this.entityManager = entityManager;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        this.enabled = enabled;
+        this.maxResults = maxResults;
+        this.maxStalenessMs = maxStalenessMs;
+
+        Gauge.builder("account.search.index.size", searchIndex, AccountSearchIndex::size).register(meterRegistry);
+        this.fallbacks = Counter.builder("account.search.index.fallbacks").register(meterRegistry);
+        Gauge.builder("account.search.index.staleness.ms", this,
+                s -> s.syncedUpToMs > 0 ? System.currentTimeMillis() - s.syncedUpToMs : -1).register(meterRegistry);
+    }
+
+    /**
+     * Ids of accounts matching the keyword, or empty if the caller should search the database instead.
+     * Too many matches count as "cannot answer": a huge id list is no cheaper than the scan,
+     * and so does an index that may be missing recent writes from other replicas.
+     */
+    public Optional<Set<UUID>> findMatchingIds(String keyword, RoleType role) {
+        if (!enabled) {
+            return Optional.empty();
+        }
+        Optional<Set<UUID>> ids = System.currentTimeMillis() - syncedUpToMs > maxStalenessMs
+                ? Optional.empty()
+                : searchIndex.search(keyword, role, maxResults);
+        if (ids.isEmpty()) {
+            fallbacks.increment();
+        }
+        return ids;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void loadIndex() {
+        rebuildIndex();
+    }
+
+    /**
+     * Rebuild from the database so changes from other replicas are not missed for long
+     */
+    @Scheduled(initialDelayString = "${search.index.rebuild-interval-ms:600000}",
+               fixedDelayString = "${search.index.rebuild-interval-ms:600000}")
+    public void rebuildIndex() {
+        if (!enabled) {
+            return;
+        }
+        long started = System.currentTimeMillis();
+        searchIndex.beginRebuild();
+        try {
+            readOnlyTransaction.executeWithoutResult(status -> {
+                try (Stream<Account> accounts = accountRepository.streamAllOrderById(false)) {
+                    accounts.forEach(account -> {
+                        searchIndex.addRebuilt(IndexedAccount.of(account));
+                        entityManager.detach(account);
+                    });
+                }
+            });
+            searchIndex.finishRebuild();
+            // Rows committed while the scan ran are picked up by the next sync, which reaches back past this
+            advanceSyncedUpTo(started);
+            log.info("Rebuilt account search index with {} accounts in {} ms",
+                    searchIndex.size(), System.currentTimeMillis() - started);
+        } catch (RuntimeException e) {
+            searchIndex.abortRebuild();
+            log.error("Failed to rebuild account search index", e);
+        }
+    }
+
+    /**
+     * Pull accounts changed on any replica since the last sync. Keeps the index within about one
+     * sync interval of the database instead of one rebuild interval.
+     */
+    @Scheduled(initialDelayString = "${search.index.sync-interval-ms:5000}",
+               fixedDelayString = "${search.index.sync-interval-ms:5000}")
+    public void syncChanges() {
+        if (!enabled || !searchIndex.isLoaded()) {
+            return;
+        }
+        long since = syncedUpToMs;
+        long started = System.currentTimeMillis();
+        try {
+            int changed = readOnlyTransaction.execute(status -> {
+                List<Account> accounts = accountRepository.findByUpdatedAtAfter(OffsetDateTime.ofInstant(
+                        Instant.ofEpochMilli(since - SYNC_OVERLAP_MS), ZoneOffset.UTC));
+                accounts.forEach(account -> searchIndex.apply(IndexedAccount.of(account)));
+                return accounts.size();
+            });
+            advanceSyncedUpTo(started);
+            log.debug("Synced {} changed accounts into the search index", changed);
+        } catch (RuntimeException e) {
+            // syncedUpTo stays put, so searches fall back to the database once the bound is exceeded
+            log.warn("Failed to sync account search index", e);
+        }
+    }
+
+    private synchronized void advanceSyncedUpTo(long startedMs) {
+        syncedUpToMs = Math.max(syncedUpToMs, startedMs);
+    }
+}
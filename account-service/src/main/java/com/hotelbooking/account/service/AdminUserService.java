@@ -8,23 +8,40 @@ import com.hotelbooking.account.entity.Account;
 import com.hotelbooking.account.enums.RoleType;
 import com.hotelbooking.account.repository.AccountRepository;
 import com.hotelbooking.account.response.PaginationResponse;
+import com.hotelbooking.account.security.CustomUserDetailsService;
 import com.hotelbooking.account.validation.PhoneValidator;
+import jakarta.persistence.criteria.Predicate;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
 import org.springframework.stereotype.Service;
 
 import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Optional;
+import java.util.Set;
 import java.util.UUID;
 
 @Service
 public class AdminUserService {
 
     private final AccountRepository accountRepository;
+    private final TokenRevocationService tokenRevocationService;
+    private final CustomUserDetailsService userDetailsService;
+    private final AccountSearchService accountSearchService;
 
-    public AdminUserService(AccountRepository accountRepository) {
+    public AdminUserService(AccountRepository accountRepository,
+                            TokenRevocationService tokenRevocationService,
+                            CustomUserDetailsService userDetailsService,
+                            AccountSearchService accountSearchService) {
         this.accountRepository = accountRepository;
+        this.tokenRevocationService = tokenRevocationService;
+        this.userDetailsService = userDetailsService;
+        this.accountSearchService = accountSearchService;
     }
 
     public PaginationResponse<AccountDTO> getUsers(PaginationDTO paginationDTO) {
@@ -32,13 +49,28 @@ public class AdminUserService {
     }
 
     public PaginationResponse<AccountDTO> getUsers(PaginationDTO paginationDTO, RoleType roleFilter) {
-        Sort sort = Sort.by(Sort.Direction.fromString(paginationDTO.sortDirection), paginationDTO.sortBy);
+        if (paginationDTO.cursor != null && !paginationDTO.cursor.isBlank()) {
+            return getUsersAfterCursor(paginationDTO, roleFilter);
+        }
+
+        Sort.Direction direction = Sort.Direction.fromString(paginationDTO.sortDirection);
+        AccountCursor.SortKey sortKey = AccountCursor.SortKey.fromProperty(paginationDTO.sortBy);
+        // Keyset-capable columns get the id tie-breaker so a cursor taken from this page continues it exactly
+        Sort sort = sortKey != null
+                ? AccountCursor.sortOf(sortKey, direction)
+                : Sort.by(direction, paginationDTO.sortBy);
         Pageable pageable = PageRequest.of(paginationDTO.pageNumber - 1, paginationDTO.pageSize, sort);
 
         Page<Account> accounts;
+        Optional<Set<UUID>> matchedIds = findMatchingIds(paginationDTO.search, roleFilter);
 
         // Determine which query method to use based on search and role filter
-        if (roleFilter != null && (paginationDTO.search != null && !paginationDTO.search.trim().isEmpty())) {
+        if (matchedIds.isPresent()) {
+            // Search answered by the in-memory index; page over the matched ids by primary key
+            accounts = matchedIds.get().isEmpty()
+                    ? Page.empty(pageable)
+                    : accountRepository.findByIdInAndDeletedAtIsNull(matchedIds.get(), pageable);
+        } else if (roleFilter != null && (paginationDTO.search != null && !paginationDTO.search.trim().isEmpty())) {
             // Both role filter and search
             accounts = accountRepository.searchByRoleAndKeyword(roleFilter, paginationDTO.search.trim(), pageable);
         } else if (roleFilter != null) {
@@ -65,10 +97,86 @@ public class AdminUserService {
                 accounts.hasNext(),
                 accounts.hasPrevious()
         );
+        if (sortKey != null && accounts.hasNext()) {
+            List<Account> content = accounts.getContent();
+            paging.setNextCursor(AccountCursor.after(content.get(content.size() - 1), sortKey, direction).encode());
+        }
 
         return new PaginationResponse<>(accountDTOs, paging);
     }
 
+    /**
+     * Keyset page: seek past the cursor's (sortKey, id) and read one extra row to learn whether
+     * another page follows. The cursor carries its own sort order. The total is only counted on
+     * request and is reported as -1 otherwise.
+     */
+    private PaginationResponse<AccountDTO> getUsersAfterCursor(PaginationDTO paginationDTO, RoleType roleFilter) {
+        AccountCursor cursor = AccountCursor.decode(paginationDTO.cursor);
+        Specification<Account> filter = filterOf(roleFilter, paginationDTO.search,
+                findMatchingIds(paginationDTO.search, roleFilter));
+        Specification<Account> afterCursor = filter.and((root, query, cb) -> cursor.seekPredicate(root, cb));
+        Sort sort = AccountCursor.sortOf(cursor.getSortKey(), cursor.getDirection());
+
+        List<Account> rows = accountRepository.findBy(afterCursor,
+                query -> query.sortBy(sort).limit(paginationDTO.pageSize + 1).all());
+        boolean hasNext = rows.size() > paginationDTO.pageSize;
+        List<Account> pageRows = hasNext ? rows.subList(0, paginationDTO.pageSize) : rows;
+
+        int total = -1;
+        int totalPages = -1;
+        if (paginationDTO.includeTotal) {
+            total = (int) accountRepository.count(filter);
+            totalPages = (total + paginationDTO.pageSize - 1) / paginationDTO.pageSize;
+        }
+
+        PaginationResponse<AccountDTO> response = new PaginationResponse<>(null, null);
+        var paging = response.new Paging(
+                total,
+                paginationDTO.pageNumber,
+                paginationDTO.pageSize,
+                totalPages,
+                hasNext,
+                true
+        );
+        if (hasNext) {
+            Account last = pageRows.get(pageRows.size() - 1);
+            paging.setNextCursor(AccountCursor.after(last, cursor.getSortKey(), cursor.getDirection()).encode());
+        }
+
+        return new PaginationResponse<>(pageRows.stream().map(AccountDTO::new).toList(), paging);
+    }
+
+    private Optional<Set<UUID>> findMatchingIds(String search, RoleType roleFilter) {
+        if (search == null || search.trim().isEmpty()) {
+            return Optional.empty();
+        }
+        return accountSearchService.findMatchingIds(search, roleFilter);
+    }
+
+    // Same filters as the searchBy*/findBy* queries used for offset paging; ids matched by the
+    // search index replace the LIKE scan when available
+    private static Specification<Account> filterOf(RoleType roleFilter, String search, Optional<Set<UUID>> matchedIds) {
+        String pattern = search != null && !search.trim().isEmpty()
+                ? "%" + search.trim().toLowerCase(Locale.ROOT) + "%"
+                : null;
+        return (root, query, cb) -> {
+            List<Predicate> predicates = new ArrayList<>();
+            predicates.add(cb.isNull(root.get("deletedAt")));
+            if (roleFilter != null) {
+                predicates.add(cb.equal(root.get("role"), roleFilter));
+            }
+            if (matchedIds.isPresent()) {
+                predicates.add(matchedIds.get().isEmpty() ? cb.disjunction() : root.get("id").in(matchedIds.get()));
+            } else if (pattern != null) {
+                predicates.add(cb.or(
+                        cb.like(cb.lower(root.get("username")), pattern),
+                        cb.like(cb.lower(root.get("email")), pattern),
+                        cb.like(cb.lower(root.get("phone")), pattern)));
+            }
+            return cb.and(predicates.toArray(new Predicate[0]));
+        };
+    }
+
     public PaginationResponse<AccountDTO> getUsersByRole(PaginationDTO paginationDTO, String roleName) {
         try {
             RoleType roleType = RoleType.valueOf(roleName.toUpperCase());
@@ -113,7 +221,25 @@ public class AdminUserService {
         account.setPhone(accountDTO.getPhone());
         account.setImageUrl(accountDTO.getImageUrl());
 
+        boolean privilegesChanged = false;
+        if (accountDTO.getRole() != null) {
+            RoleType role = RoleType.valueOf(accountDTO.getRole().toUpperCase());
+            privilegesChanged = role != account.getRole();
+            account.setRole(role);
+        }
+        if (accountDTO.getIsActive() != null) {
+            privilegesChanged |= !accountDTO.getIsActive().equals(account.getIsActive());
+            account.setIsActive(accountDTO.getIsActive());
+        }
+
         Account savedAccount = accountRepository.save(account);
+        userDetailsService.evict(savedAccount.getUsername());
+
+        // Tokens carry the role and, with claims-trust, stand in for the account's active flag,
+        // so tokens issued before the change must stop working
+        if (privilegesChanged) {
+            tokenRevocationService.revokeAllTokens(savedAccount.getId());
+        }
         return new AccountDTO(savedAccount);
     }
 
@@ -121,6 +247,10 @@ public class AdminUserService {
         Account account = accountRepository.findById(id).orElseThrow(() -> new IllegalArgumentException("Account not found: " + id));
         account.setDeletedAt(OffsetDateTime.now());
         Account savedAccount = accountRepository.save(account);
+        userDetailsService.evict(savedAccount.getUsername());
+
+        // A deleted account must not keep using tokens it already holds
+        tokenRevocationService.revokeAllTokens(savedAccount.getId());
         return new AccountDTO(savedAccount);
     }
 }
@@ -9,58 +9,85 @@ import com.hotelbooking.account.dto.RegisterAccountDTO;
 import com.hotelbooking.account.dto.ResetPasswordRequest;
 import com.hotelbooking.account.dto.UpdateProfileDTO;
 import com.hotelbooking.account.entity.Account;
+import com.hotelbooking.account.enums.EmailType;
 import com.hotelbooking.account.enums.RoleType;
 import com.hotelbooking.account.repository.AccountRepository;
 import com.hotelbooking.account.security.CustomUserDetailsService;
 import com.hotelbooking.account.security.CustomUserPrincipal;
+import com.hotelbooking.account.security.LoginAttemptLimiter;
 import com.hotelbooking.account.validation.PhoneValidator;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.http.ResponseEntity;
-import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.time.OffsetDateTime;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.UUID;
 
+@Slf4j
 @Service
 public class AuthService {
     private final AccountRepository accountRepository;
-    private final PasswordEncoder passwordEncoder;
+    private final PasswordHashingService passwordHashingService;
     private final JwtService jwtService;
     private final RefreshTokenService refreshTokenService;
     private final CustomUserDetailsService userDetailsService;
-    private final EmailService emailService;
+    private final EmailOutboxService emailOutboxService;
+    private final TokenRevocationService tokenRevocationService;
+    private final LoginAttemptLimiter loginAttemptLimiter;
+    private final TransactionTemplate transactionTemplate;
 
     public AuthService(AccountRepository accountRepository, 
-                      PasswordEncoder passwordEncoder, 
+                      PasswordHashingService passwordHashingService,
                       JwtService jwtService, 
                       RefreshTokenService refreshTokenService, 
                       CustomUserDetailsService userDetailsService,
-                      EmailService emailService) {
+                      EmailOutboxService emailOutboxService,
+                      TokenRevocationService tokenRevocationService,
+                      LoginAttemptLimiter loginAttemptLimiter,
+                      PlatformTransactionManager transactionManager) {
         this.accountRepository = accountRepository;
-        this.passwordEncoder = passwordEncoder;
+        this.passwordHashingService = passwordHashingService;
         this.jwtService = jwtService;
         this.refreshTokenService = refreshTokenService;
         this.userDetailsService = userDetailsService;
-        this.emailService = emailService;
+        this.emailOutboxService = emailOutboxService;
+        this.tokenRevocationService = tokenRevocationService;
+        this.loginAttemptLimiter = loginAttemptLimiter;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
     }
 
     public AuthResponse login(String email, String password) {
-        Account account = accountRepository.findByEmailAndDeletedAtIsNull(email)
-                .orElseThrow(() -> new RuntimeException("Invalid credentials"));
+        return login(email, password, null);
+    }
 
-        if (!passwordEncoder.matches(password, account.getPassword())) {
+    /**
+     * @param client address of the caller, used to throttle repeated failures; may be null
+     */
+    public AuthResponse login(String email, String password, String client) {
+        // Rejected before any database query or hash while the email or client is cooling down
+        loginAttemptLimiter.checkAllowed(email, client);
+
+        Account account = accountRepository.findByEmailAndDeletedAtIsNull(email).orElse(null);
+        if (account == null || !passwordHashingService.matches(password, account.getPassword())) {
+            loginAttemptLimiter.recordFailure(email, client);
             throw new RuntimeException("Invalid credentials");
         }
+        loginAttemptLimiter.recordSuccess(email);
 
         // Check if account is active (email verified)
         if (!Boolean.TRUE.equals(account.getIsActive())) {
             throw new RuntimeException("Account not activated. Please verify your email address.");
         }
 
-        // Load user principal properly using injected service
-        CustomUserPrincipal userPrincipal = (CustomUserPrincipal) userDetailsService.loadUserByUsername(account.getUsername());
+        rehashIfOutdated(account, password);
+
+        // Build the principal from the account we already loaded
+        CustomUserPrincipal userPrincipal = userDetailsService.buildPrincipal(account);
 
         // Generate token with permissions
         String token = jwtService.generateTokenForUser(userPrincipal);
@@ -70,6 +97,29 @@ public class AuthService {
         return new AuthResponse(token, refreshToken, accountDTO);
     }
 
+    /**
+     * Upgrade the stored hash to the current encoder settings while we still hold the plaintext.
+     * Best effort: a failure here must not fail the login.
+     */
+    private void rehashIfOutdated(Account account, String password) {
+        String currentHash = account.getPassword();
+        if (!passwordHashingService.needsRehash(currentHash)) {
+            return;
+        }
+        try {
+            String upgraded = passwordHashingService.encode(password);
+            if (accountRepository.updatePasswordIfUnchanged(account.getId(), currentHash, upgraded) > 0) {
+                account.setPassword(upgraded);
+            }
+        } catch (RuntimeException e) {
+            log.warn("Could not upgrade password hash for account {}", account.getId(), e);
+        }
+    }
+
+    /**
+     * The password is hashed before the transaction starts, so the deliberately slow hash does not
+     * hold a pooled connection; only the insert and the outbox row share the transaction.
+     */
     public AccountDTO registerAccount(RegisterAccountDTO accountDTO) throws Exception {
         if (accountRepository.findByEmailAndDeletedAtIsNull(accountDTO.getEmail()).isPresent()) {
             throw new Exception("Email already in use");
@@ -88,51 +138,43 @@ public class AuthService {
         account.setEmail(accountDTO.getEmail());
         account.setPhone(accountDTO.getPhone());
         account.setImageUrl(accountDTO.getImageUrl());
-        account.setPassword(passwordEncoder.encode(accountDTO.getPassword()));
+        account.setPassword(passwordHashingService.encode(accountDTO.getPassword()));
         account.setRole(RoleType.USER); // Set enum directly
         account.setIsActive(false); // Account is not active until email is verified
         account.setVerificationToken(verificationToken);
         account.setVerificationTokenExpiresAt(tokenExpiry);
 
-        Account savedAccount = accountRepository.save(account);
+        // TransactionTemplate rather than a @Transactional helper, which a call from this class would bypass
+        return transactionTemplate.execute(status -> {
+            Account savedAccount = accountRepository.save(account);
 
-        // Send verification email
-        try {
-            emailService.sendVerificationEmail(
-                savedAccount.getEmail(),
-                savedAccount.getUsername(),
-                verificationToken
-            );
-        } catch (Exception e) {
-            // Log the error but don't fail the registration
-            // The user can request to resend the email later
-            System.err.println("Failed to send verification email: " + e.getMessage());
-        }
+            // Delivered by the outbox dispatcher once this transaction commits
+            emailOutboxService.enqueue(EmailType.VERIFICATION, savedAccount, verificationToken);
 
-        return new AccountDTO(savedAccount);
+            return new AccountDTO(savedAccount);
+        });
     }
 
     public AuthResponse refreshToken(String refreshToken) {
-        String userId = refreshTokenService.validateRefreshToken(refreshToken);
-        if (userId == null) {
-            throw new RuntimeException("Invalid refresh token");
-        }
+        // Consumes the presented token; replaying an already used one revokes the whole session
+        RefreshTokenService.RotatedToken rotated = refreshTokenService.rotateRefreshToken(refreshToken)
+                .orElseThrow(() -> new RuntimeException("Invalid refresh token"));
 
-        Account account = accountRepository.findByIdAndDeletedAtIsNull(java.util.UUID.fromString(userId)).orElseThrow(() -> new RuntimeException("Not found user"));
+        Account account = accountRepository.findByIdAndDeletedAtIsNull(rotated.getUserId()).orElseThrow(() -> new RuntimeException("Not found user"));
 
-        // Load user principal properly using injected service
-        CustomUserPrincipal userPrincipal = (CustomUserPrincipal) userDetailsService.loadUserByUsername(account.getUsername());
+        // Build the principal from the account we already loaded
+        CustomUserPrincipal userPrincipal = userDetailsService.buildPrincipal(account);
 
         // Generate token with permissions
         String token = jwtService.generateTokenForUser(userPrincipal);
-        String newRefreshToken = refreshTokenService.issueRefreshToken(userPrincipal.getUserId().toString());
 
-        return new AuthResponse(token, newRefreshToken, new AccountDTO(account));
+        return new AuthResponse(token, rotated.getToken(), new AccountDTO(account));
     }
 
     /**
-     * Verify email using verification token
+     * Verify email using verification token. Queues the welcome email.
      */
+    @Transactional
     public AccountDTO verifyEmail(String verificationToken) {
         Account account = accountRepository.findByVerificationTokenAndDeletedAtIsNull(verificationToken)
                 .orElseThrow(() -> new RuntimeException("Invalid verification token"));
@@ -154,12 +196,14 @@ public class AuthService {
         account.setVerificationTokenExpiresAt(null);
 
         Account savedAccount = accountRepository.save(account);
+        emailOutboxService.enqueue(EmailType.WELCOME, savedAccount, null);
         return new AccountDTO(savedAccount);
     }
 
     /**
      * Resend verification email
      */
+    @Transactional
     public void resendVerificationEmail(String email) {
         Account account = accountRepository.findByEmailAndDeletedAtIsNull(email)
                 .orElseThrow(() -> new RuntimeException("Account not found"));
@@ -177,13 +221,7 @@ public class AuthService {
         account.setVerificationTokenExpiresAt(tokenExpiry);
 
         accountRepository.save(account);
-
-        // Send verification email
-        emailService.sendVerificationEmail(
-            account.getEmail(),
-            account.getUsername(),
-            verificationToken
-        );
+        emailOutboxService.enqueue(EmailType.VERIFICATION, account, verificationToken);
     }
 
     /**
@@ -213,6 +251,7 @@ public class AuthService {
         account.setImageUrl(updateProfileDTO.getImageUrl());
 
         Account savedAccount = accountRepository.save(account);
+        userDetailsService.evict(savedAccount.getUsername());
         return new AccountDTO(savedAccount);
     }
 
@@ -229,18 +268,23 @@ public class AuthService {
                 .orElseThrow(() -> new RuntimeException("Account not found"));
 
         // Verify current password
-        if (!passwordEncoder.matches(request.getCurrentPassword(), account.getPassword())) {
+        if (!passwordHashingService.matches(request.getCurrentPassword(), account.getPassword())) {
             throw new RuntimeException("Current password is incorrect");
         }
 
         // Update password
-        account.setPassword(passwordEncoder.encode(request.getNewPassword()));
+        account.setPassword(passwordHashingService.encode(request.getNewPassword()));
         accountRepository.save(account);
+        userDetailsService.evict(account.getUsername());
+
+        // Sign out every existing session
+        tokenRevocationService.revokeAllTokens(account.getId());
     }
 
     /**
-     * Forgot password - generate reset token and send email
+     * Forgot password - generate reset token and queue the reset email
      */
+    @Transactional
     public void forgotPassword(ForgotPasswordRequest request) {
         // Find account by email - don't reveal if email exists or not
         Account account = accountRepository.findByEmailAndDeletedAtIsNull(request.getEmail())
@@ -265,18 +309,7 @@ public class AuthService {
         account.setPasswordResetTokenExpiresAt(tokenExpiry);
 
         accountRepository.save(account);
-
-        // Send password reset email
-        try {
-            emailService.sendPasswordResetEmail(
-                account.getEmail(),
-                account.getUsername(),
-                resetToken
-            );
-        } catch (Exception e) {
-            // Log the error but don't fail the operation
-            System.err.println("Failed to send password reset email: " + e.getMessage());
-        }
+        emailOutboxService.enqueue(EmailType.PASSWORD_RESET, account, resetToken);
     }
 
     /**
@@ -298,10 +331,14 @@ public class AuthService {
         }
 
         // Update password and clear reset token
-        account.setPassword(passwordEncoder.encode(request.getNewPassword()));
+        account.setPassword(passwordHashingService.encode(request.getNewPassword()));
         account.setPasswordResetToken(null);
         account.setPasswordResetTokenExpiresAt(null);
 
         accountRepository.save(account);
+        userDetailsService.evict(account.getUsername());
+
+        // Sign out every existing session
+        tokenRevocationService.revokeAllTokens(account.getId());
     }
 }
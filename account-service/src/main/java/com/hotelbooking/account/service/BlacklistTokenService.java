@@ -2,76 +2,240 @@ package com.hotelbooking.account.service;
 
 import com.hotelbooking.account.entity.TokenBlacklist;
 import com.hotelbooking.account.repository.TokenBlacklistRepository;
+import com.hotelbooking.account.security.TokenBlacklistIndex;
+import com.hotelbooking.account.security.TokenHashing;
+import com.hotelbooking.account.security.VerifiedToken;
+import io.micrometer.core.instrument.MeterRegistry;
 import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import java.time.Duration;
 import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
 
 @Service
+@Slf4j
 @RequiredArgsConstructor
 public class BlacklistTokenService {
 
+    private static final String PURGE_LOCK_NAME = "token-blacklist-purge";
+
+    // Overlap between sync windows so rows committed late by other replicas are not missed
+    private static final long SYNC_OVERLAP_SECONDS = 5;
+
     private final TokenBlacklistRepository tokenBlacklistRepository;
     private final JwtService jwtService;
+    private final TokenBlacklistIndex blacklistIndex;
+    private final TokenRevocationService tokenRevocationService;
+    private final SchedulerLockService schedulerLockService;
+    private final PlatformTransactionManager transactionManager;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${jwt.blacklist.purge.batch-size:1000}")
+    private int purgeBatchSize;
+
+    @Value("${jwt.blacklist.purge.pause-ms:100}")
+    private long purgePauseMs;
+
+    @Value("${jwt.blacklist.purge.lock-at-most-for-ms:1800000}")
+    private long purgeLockAtMostForMs;
+
+    // Strict mode: confirm every index miss against the database, closing the cross-replica window
+    @Value("${jwt.blacklist.confirm-misses:false}")
+    private boolean confirmMisses;
+
+    private volatile OffsetDateTime lastSyncAt;
 
     /**
-     * Add token to blacklist
+     * Add token to blacklist.
+     * The index only learns of the entry once its row is committed, so a rolled-back insert never
+     * rejects the token here. Two concurrent logouts of one token race on the unique key; the loser
+     * treats the winner's row as its own.
      */
-    @Transactional
     public void blacklistToken(String token, String userEmail) {
         if (token == null || token.trim().isEmpty()) {
             throw new IllegalArgumentException("Token cannot be null or empty");
         }
 
-        // Check if token is already blacklisted
-        if (isTokenBlacklisted(token)) {
-            return; // Already blacklisted, no need to add again
+        VerifiedToken verifiedToken = verifyQuietly(token);
+        String tokenId = tokenIdOf(token, verifiedToken);
+
+        // If we can't extract expiration, set it to expire in 24 hours as fallback
+        OffsetDateTime expiresAt = verifiedToken != null
+            ? OffsetDateTime.ofInstant(verifiedToken.getExpiresAt(), ZoneOffset.UTC)
+            : OffsetDateTime.now().plusHours(24);
+
+        try {
+            new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+                // Check the database, another replica may have blacklisted it before our index synced
+                if (tokenBlacklistRepository.existsByTokenId(tokenId)) {
+                    return; // Already blacklisted, no need to add again
+                }
+
+                TokenBlacklist blacklistedToken = new TokenBlacklist();
+                blacklistedToken.setTokenId(tokenId);
+                blacklistedToken.setExpiresAt(expiresAt);
+                blacklistedToken.setUserEmail(userEmail);
+
+                // Flushed here so a duplicate key surfaces from this call rather than at commit
+                tokenBlacklistRepository.saveAndFlush(blacklistedToken);
+                afterCommit(() -> blacklistIndex.add(tokenId, expiresAt.toInstant()));
+            });
+        } catch (DataIntegrityViolationException e) {
+            // uk_token_blacklist_token_id: a concurrent logout committed the same token first
+            blacklistIndex.add(tokenId, expiresAt.toInstant());
         }
 
-        // Extract expiration date from token
-        OffsetDateTime expiresAt = extractExpirationFromToken(token);
-        
-        TokenBlacklist blacklistedToken = new TokenBlacklist();
-        blacklistedToken.setJwtToken(token);
-        blacklistedToken.setExpiresAt(expiresAt);
-        blacklistedToken.setUserEmail(userEmail);
-        
-        tokenBlacklistRepository.save(blacklistedToken);
+        // Revoked tokens must go through a full check again
+        jwtService.evictFromCache(token);
     }
 
     /**
-     * Check if a token is blacklisted
+     * Check if an already verified token may no longer be used, either because it was
+     * blacklisted on its own or because every token of its user was revoked after it was issued
      */
-    public boolean isTokenBlacklisted(String token) {
-        if (token == null || token.trim().isEmpty()) {
+    public boolean isTokenRevoked(String token, VerifiedToken verifiedToken) {
+        return tokenRevocationService.isRevoked(verifiedToken) || isTokenBlacklisted(token, verifiedToken);
+    }
+
+    /**
+     * Check if an already verified token is blacklisted.
+     * Answered from the in-memory index; the database is only queried until the index is loaded,
+     * or on a miss when jwt.blacklist.confirm-misses is set. Without it, a token blacklisted on
+     * another replica is still accepted here until the next sync (jwt.blacklist.sync-interval-ms).
+     */
+    public boolean isTokenBlacklisted(String token, VerifiedToken verifiedToken) {
+        if (token == null || token.isBlank()) {
             return false;
         }
-        return tokenBlacklistRepository.existsByJwtToken(token);
+        String tokenId = tokenIdOf(token, verifiedToken);
+        if (blacklistIndex.isLoaded()) {
+            if (blacklistIndex.contains(tokenId)) {
+                return true;
+            }
+            if (!confirmMisses) {
+                return false;
+            }
+        }
+        return tokenBlacklistRepository.existsByTokenId(tokenId);
     }
 
     /**
-     * Extract expiration date from JWT token
+     * Blacklist key of a token: its jti claim, or the SHA-256 digest for tokens minted before jti was added
      */
-    private OffsetDateTime extractExpirationFromToken(String token) {
+    public static String tokenIdOf(String token, VerifiedToken verifiedToken) {
+        if (verifiedToken != null && verifiedToken.getJti() != null) {
+            return verifiedToken.getJti();
+        }
+        return TokenHashing.sha256Hex(token);
+    }
+
+    /**
+     * Load every unexpired blacklist entry into the in-memory index
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional(readOnly = true)
+    public void loadBlacklistIndex() {
+        OffsetDateTime now = OffsetDateTime.now();
+        tokenBlacklistRepository.findByExpiresAtAfter(now)
+            .forEach(entry -> blacklistIndex.add(entry.getTokenId(), entry.getExpiresAt().toInstant()));
+        lastSyncAt = now;
+        blacklistIndex.markLoaded();
+        log.info("Loaded {} blacklisted tokens into memory", blacklistIndex.size());
+    }
+
+    /**
+     * Pull entries blacklisted by other replicas since the last sync.
+     * The interval bounds how long a logout on another replica goes unnoticed here, so it is kept
+     * short; each run is a small range scan on blacklisted_at.
+     */
+    @Scheduled(fixedDelayString = "${jwt.blacklist.sync-interval-ms:2000}")
+    @Transactional(readOnly = true)
+    public void syncBlacklistIndex() {
+        if (!blacklistIndex.isLoaded()) {
+            return;
+        }
+        OffsetDateTime now = OffsetDateTime.now();
+        OffsetDateTime since = lastSyncAt.minusSeconds(SYNC_OVERLAP_SECONDS);
+        tokenBlacklistRepository.findByBlacklistedAtAfterAndExpiresAtAfter(since, now)
+            .forEach(entry -> blacklistIndex.add(entry.getTokenId(), entry.getExpiresAt().toInstant()));
+        lastSyncAt = now;
+    }
+
+    private static void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+
+    private VerifiedToken verifyQuietly(String token) {
         try {
-            return jwtService.extractClaim(token, claims -> 
-                OffsetDateTime.ofInstant(claims.getExpiration().toInstant(), 
-                java.time.ZoneOffset.UTC));
+            return jwtService.verify(token);
         } catch (Exception e) {
-            // If we can't extract expiration, set it to expire in 24 hours as fallback
-            return OffsetDateTime.now().plusHours(24);
+            return null;
         }
     }
 
     /**
-     * Cleanup expired tokens from blacklist
-     * Runs every hour to clean up expired tokens
+     * Cleanup expired tokens from blacklist.
+     * Deletes in bounded chunks, each in its own short transaction, with a pause between chunks
+     * so a large purge never holds long locks. Only one replica purges the table per run.
      */
-    @Scheduled(fixedRate = 3600000) // 1 hour
-    @Transactional
+    @Scheduled(fixedRateString = "${jwt.blacklist.purge.interval-ms:3600000}") // 1 hour
     public void cleanupExpiredTokens() {
-        tokenBlacklistRepository.deleteExpiredTokens(OffsetDateTime.now());
+        OffsetDateTime now = OffsetDateTime.now();
+        blacklistIndex.removeExpired(now.toInstant());
+
+        if (!schedulerLockService.tryLock(PURGE_LOCK_NAME, Duration.ofMillis(purgeLockAtMostForMs))) {
+            return;
+        }
+        long start = System.nanoTime();
+        long purged = 0;
+        try {
+            TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+            int deleted;
+            do {
+                deleted = transactionTemplate.execute(status -> {
+                    List<UUID> ids = tokenBlacklistRepository.findExpiredIds(now, PageRequest.of(0, purgeBatchSize));
+                    if (!ids.isEmpty()) {
+                        tokenBlacklistRepository.deleteAllByIdInBatch(ids);
+                    }
+                    return ids.size();
+                });
+                purged += deleted;
+                if (deleted == purgeBatchSize && purgePauseMs > 0) {
+                    Thread.sleep(purgePauseMs);
+                }
+            } while (deleted == purgeBatchSize);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            schedulerLockService.unlock(PURGE_LOCK_NAME);
+            meterRegistry.counter("token_blacklist.purge.rows").increment(purged);
+            meterRegistry.timer("token_blacklist.purge.duration").record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+        log.info("Purged {} expired blacklist entries", purged);
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,274 @@
+package com.hotelbooking.account.service;
+
+import com.hotelbooking.account.dto.NotificationRecipient;
+import com.hotelbooking.account.email.RateLimiter;
+import com.hotelbooking.account.entity.NotificationJob;
+import com.hotelbooking.account.enums.NotificationJobStatus;
+import com.hotelbooking.account.enums.RoleType;
+import com.hotelbooking.account.repository.AccountRepository;
+import com.hotelbooking.account.repository.NotificationJobRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+
+import java.time.OffsetDateTime;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * Emails every active account with a given role.
+ * Recipients are read in keyset chunks by account id, so only one chunk is ever in memory, and
+ * each chunk goes out as a single SendGrid call with one personalization per recipient. The job
+ * row is checkpointed after every delivered call, so a failed or cancelled job resumes where it
+ * stopped. A crash between a call and its checkpoint resends that one call's recipients on resume.
+ * Recipients SendGrid rejects individually are skipped and counted rather than failing the job.
+ */
+@Service
+@Slf4j
+public class BulkNotificationService {
+
+    // Lowest possible id, the keyset start for a fresh job
+    private static final UUID FIRST_ID = new UUID(0L, 0L);
+    private static final int MAX_ERROR_LENGTH = 500;
+
+    private final AccountRepository accountRepository;
+    private final NotificationJobRepository notificationJobRepository;
+    private final EmailService emailService;
+    private final ExecutorService executor;
+    private final RateLimiter rateLimiter;
+
+    private final Counter batches;
+    private final Counter recipients;
+    private final Counter skipped;
+
+    @Value("${notification.bulk.batch-size:1000}")
+    private int batchSize;
+
+    @Value("${notification.bulk.max-attempts:5}")
+    private int maxAttempts;
+
+    @Value("${notification.bulk.backoff-initial-ms:2000}")
+    private long backoffInitialMs;
+
+    @Value("${notification.bulk.backoff-max-ms:60000}")
+    private long backoffMaxMs;
+
+    // Past this many rejected recipients the mail itself is assumed bad and the job fails
+    @Value("${notification.bulk.max-skipped:100}")
+    private int maxSkipped;
+
+    // A RUNNING job without a checkpoint for this long is assumed dead and may be resumed
+    @Value("${notification.bulk.stale-after-ms:600000}")
+    private long staleAfterMs;
+
+    public BulkNotificationService(AccountRepository accountRepository,
+                                   NotificationJobRepository notificationJobRepository,
+                                   EmailService emailService,
+                                   MeterRegistry meterRegistry,
+                                   @Value("${notification.bulk.max-concurrent:1}") int maxConcurrent,
+                                   @Value("${notification.bulk.requests-per-second:10}") double requestsPerSecond) {
+        this.accountRepository = accountRepository;
+        this.notificationJobRepository = notificationJobRepository;
+        this.emailService = emailService;
+        // Shared by all jobs so together they stay within the SendGrid rate
+        this.rateLimiter = new RateLimiter(requestsPerSecond);
+
+        // No queue: a job beyond the limit is refused instead of waiting behind the others
+        AtomicInteger threadCounter = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(0, maxConcurrent, 60L, TimeUnit.SECONDS,
+                new SynchronousQueue<>(),
+                runnable -> new Thread(runnable, "bulk-notification-" + threadCounter.incrementAndGet()),
+                new ThreadPoolExecutor.AbortPolicy());
+
+        this.batches = Counter.builder("notification.bulk.batches").register(meterRegistry);
+        this.recipients = Counter.builder("notification.bulk.recipients").register(meterRegistry);
+        this.skipped = Counter.builder("notification.bulk.skipped").register(meterRegistry);
+    }
+
+    /**
+     * Start a new job. The sink receives the job once it is created, after every checkpoint
+     * and when it ends; if the sink throws, the job stops as CANCELLED.
+     *
+     * @throws java.util.concurrent.RejectedExecutionException if too many jobs are running
+     */
+    public CompletableFuture<NotificationJob> start(RoleType role, String subject, String htmlContent,
+                                                    Consumer<NotificationJob> progress) {
+        if (role == null || subject == null || subject.isBlank() || htmlContent == null || htmlContent.isBlank()) {
+            throw new IllegalArgumentException("Role, subject and content are required");
+        }
+        NotificationJob job = new NotificationJob();
+        job.setRole(role);
+        job.setSubject(subject);
+        job.setHtmlContent(htmlContent);
+        return submit(() -> notificationJobRepository.save(job), progress);
+    }
+
+    /**
+     * Continue a failed or cancelled job after its last checkpoint
+     */
+    public CompletableFuture<NotificationJob> resume(UUID jobId, Consumer<NotificationJob> progress) {
+        return submit(() -> {
+            OffsetDateTime now = OffsetDateTime.now();
+            int claimed = notificationJobRepository.claimForResume(jobId, NotificationJobStatus.RUNNING,
+                    EnumSet.of(NotificationJobStatus.FAILED, NotificationJobStatus.CANCELLED),
+                    now, now.minusNanos(staleAfterMs * 1_000_000));
+            NotificationJob job = notificationJobRepository.findById(jobId)
+                    .orElseThrow(() -> new IllegalArgumentException("Notification job not found: " + jobId));
+            if (claimed == 0) {
+                throw new IllegalStateException("Notification job " + jobId + " is " + job.getStatus());
+            }
+            return job;
+        }, progress);
+    }
+
+    private CompletableFuture<NotificationJob> submit(Supplier<NotificationJob> init, Consumer<NotificationJob> progress) {
+        return CompletableFuture.supplyAsync(() -> run(init.get(), progress), executor);
+    }
+
+    private NotificationJob run(NotificationJob job, Consumer<NotificationJob> progress) {
+        int chunkSize = Math.min(batchSize, EmailService.MAX_PERSONALIZATIONS);
+        UUID after = job.getLastAccountId() != null ? job.getLastAccountId() : FIRST_ID;
+        try {
+            report(job, progress);
+            List<NotificationRecipient> chunk;
+            do {
+                chunk = accountRepository.findNotificationRecipients(job.getRole(), after, PageRequest.of(0, chunkSize));
+                if (chunk.isEmpty()) {
+                    break;
+                }
+                sendChunk(job, chunk, progress);
+                after = job.getLastAccountId();
+            } while (chunk.size() == chunkSize);
+            job.setStatus(NotificationJobStatus.COMPLETED);
+        } catch (ProgressAbortedException e) {
+            job.setStatus(NotificationJobStatus.CANCELLED);
+            job.setLastError(truncate(e.getMessage()));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            job.setStatus(NotificationJobStatus.CANCELLED);
+            job.setLastError("Interrupted");
+        } catch (RuntimeException e) {
+            log.error("Notification job {} failed after {} recipients", job.getId(), job.getRecipientsSent(), e);
+            job.setStatus(NotificationJobStatus.FAILED);
+            job.setLastError(truncate(e.getMessage()));
+        }
+
+        job = notificationJobRepository.save(job);
+        log.info("Notification job {} {}: {} recipients in {} batches",
+                job.getId(), job.getStatus(), job.getRecipientsSent(), job.getBatchesSent());
+        try {
+            progress.accept(job);
+        } catch (RuntimeException ignored) {
+            // Receiver already gone, the job row has the outcome
+        }
+        return job;
+    }
+
+    /**
+     * Send a chunk, checkpointing the job after it. When SendGrid rejects a chunk outright
+     * (a non-retryable 4xx), the chunk is split in half and each half sent on its own, down to
+     * single recipients, which are skipped and counted. A few bad addresses cost about
+     * 2 * log2(chunk) extra calls instead of failing the job and replaying the chunk on resume.
+     * Halves are in id order and each delivered or skipped one is checkpointed on its own, so a
+     * later half that fails the job does not get an earlier one resent on resume.
+     */
+    private void sendChunk(NotificationJob job, List<NotificationRecipient> chunk, Consumer<NotificationJob> progress)
+            throws InterruptedException {
+        try {
+            sendWithRetry(job, chunk);
+        } catch (EmailDeliveryException e) {
+            if (e.isRetryable()) {
+                throw e;
+            }
+            if (chunk.size() == 1) {
+                skip(job, chunk.get(0), e);
+                checkpoint(job, chunk, 0, progress);
+                return;
+            }
+            int middle = chunk.size() / 2;
+            sendChunk(job, chunk.subList(0, middle), progress);
+            sendChunk(job, chunk.subList(middle, chunk.size()), progress);
+            return;
+        }
+        batches.increment();
+        recipients.increment(chunk.size());
+        job.setBatchesSent(job.getBatchesSent() + 1);
+        checkpoint(job, chunk, chunk.size(), progress);
+    }
+
+    private void skip(NotificationJob job, NotificationRecipient recipient, EmailDeliveryException e) {
+        // Checked before counting, so a job failed here can be resumed from this recipient without counting it twice
+        if (job.getRecipientsSkipped() >= maxSkipped) {
+            throw new EmailDeliveryException("Too many recipients rejected (" + maxSkipped
+                    + "), last error: " + e.getMessage(), false);
+        }
+        job.setRecipientsSkipped(job.getRecipientsSkipped() + 1);
+        job.setLastError(truncate("Skipped account " + recipient.id() + ": " + e.getMessage()));
+        skipped.increment();
+        log.warn("Notification job {} skipped account {}: {}", job.getId(), recipient.id(), e.getMessage());
+    }
+
+    // The job instance is kept rather than the saved copy, so every checkpoint inside one chunk sees the last one
+    private void checkpoint(NotificationJob job, List<NotificationRecipient> sent, int delivered,
+                            Consumer<NotificationJob> progress) {
+        job.setLastAccountId(sent.get(sent.size() - 1).id());
+        job.setRecipientsSent(job.getRecipientsSent() + delivered);
+        notificationJobRepository.save(job);
+        report(job, progress);
+    }
+
+    private void sendWithRetry(NotificationJob job, List<NotificationRecipient> chunk) throws InterruptedException {
+        for (int attempt = 1; ; attempt++) {
+            rateLimiter.acquire();
+            try {
+                emailService.sendBulk(job.getSubject(), job.getHtmlContent(), chunk);
+                return;
+            } catch (EmailDeliveryException e) {
+                if (!e.isRetryable() || attempt >= maxAttempts) {
+                    throw e;
+                }
+                long delayMs = Math.min(backoffInitialMs << Math.min(attempt - 1, 30), backoffMaxMs);
+                log.warn("Notification job {} batch failed (attempt {}), retrying in {} ms: {}",
+                        job.getId(), attempt, delayMs, e.getMessage());
+                Thread.sleep(delayMs);
+            }
+        }
+    }
+
+    private static void report(NotificationJob job, Consumer<NotificationJob> progress) {
+        try {
+            progress.accept(job);
+        } catch (RuntimeException e) {
+            throw new ProgressAbortedException(e.getMessage());
+        }
+    }
+
+    private static String truncate(String error) {
+        return error != null && error.length() > MAX_ERROR_LENGTH ? error.substring(0, MAX_ERROR_LENGTH) : error;
+    }
+
+    // The progress receiver failed, typically because the caller closed the stream
+    private static class ProgressAbortedException extends RuntimeException {
+        ProgressAbortedException(String message) {
+            super(message);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+}
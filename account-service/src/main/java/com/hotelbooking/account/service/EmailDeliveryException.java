@@ -0,0 +1,24 @@
+package com.hotelbooking.account.service;
+
+/**
+ * SendGrid did not accept a message. Retryable failures (I/O errors, 429, 5xx) are attempted
+ * again later; anything else means the message itself was rejected and will never succeed.
+ */
+public class EmailDeliveryException extends RuntimeException {
+
+    private final boolean retryable;
+
+    public EmailDeliveryException(String message, boolean retryable) {
+        super(message);
+        this.retryable = retryable;
+    }
+
+    public EmailDeliveryException(String message, Throwable cause) {
+        super(message, cause);
+        this.retryable = true;
+    }
+
+    public boolean isRetryable() {
+        return retryable;
+    }
+}
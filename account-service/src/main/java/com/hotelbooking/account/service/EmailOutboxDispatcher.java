@@ -0,0 +1,237 @@
+package com.hotelbooking.account.service;
+
+import com.hotelbooking.account.config.ExecutorModel;
+import com.hotelbooking.account.email.CircuitBreaker;
+import com.hotelbooking.account.entity.EmailOutbox;
+import com.hotelbooking.account.enums.EmailOutboxStatus;
+import com.hotelbooking.account.repository.EmailOutboxRepository;
+import com.hotelbooking.account.template.RenderedEmail;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.TaskScheduler;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Delivers outbox emails in the background.
+ * Due messages are sent on a small bounded pool through the shared SendGrid client. Transient
+ * failures are retried with exponential backoff; after repeated consecutive failures the circuit
+ * opens and polling pauses instead of hammering SendGrid. Only one replica dispatches at a time.
+ * Delivery is at-least-once: a crash between the send and the status update resends the email.
+ */
+@Service
+@Slf4j
+public class EmailOutboxDispatcher {
+
+    private static final String DISPATCH_LOCK_NAME = "email-outbox-dispatch";
+    private static final int MAX_ERROR_LENGTH = 500;
+
+    private final EmailOutboxRepository emailOutboxRepository;
+    private final EmailService emailService;
+    private final SchedulerLockService schedulerLockService;
+    private final TaskScheduler taskScheduler;
+    private final ExecutorService sendExecutor;
+    private final CircuitBreaker circuitBreaker;
+
+    private final Counter sent;
+    private final Counter retried;
+    private final Counter failed;
+
+    private final AtomicBoolean running = new AtomicBoolean();
+    private final AtomicBoolean wakeUpRequested = new AtomicBoolean();
+
+    @Value("${email.outbox.batch-size:50}")
+    private int batchSize;
+
+    @Value("${email.outbox.max-attempts:8}")
+    private int maxAttempts;
+
+    @Value("${email.outbox.backoff-initial-ms:10000}")
+    private long backoffInitialMs;
+
+    @Value("${email.outbox.backoff-max-ms:3600000}")
+    private long backoffMaxMs;
+
+    @Value("${email.outbox.lock-at-most-for-ms:120000}")
+    private long lockAtMostForMs;
+
+    @Value("${email.outbox.retention-ms:604800000}") // 7 days
+    private long retentionMs;
+
+    public EmailOutboxDispatcher(EmailOutboxRepository emailOutboxRepository,
+                                 EmailService emailService,
+                                 SchedulerLockService schedulerLockService,
+                                 TaskScheduler taskScheduler,
+                                 MeterRegistry meterRegistry,
+                                 @Value("${email.outbox.max-concurrent:4}") int maxConcurrent,
+                                 @Value("${email.outbox.circuit.failure-threshold:5}") int failureThreshold,
+                                 @Value("${email.outbox.circuit.open-ms:60000}") long openMs) {
+        this.emailOutboxRepository = emailOutboxRepository;
+        this.emailService = emailService;
+        this.schedulerLockService = schedulerLockService;
+        this.taskScheduler = taskScheduler;
+        // Unbounded queue: each dispatch queues one batch and waits for it before reading the next
+        this.sendExecutor = ExecutorModel.BOUNDED.createExecutor("email-outbox-", maxConcurrent, Integer.MAX_VALUE);
+        this.circuitBreaker = new CircuitBreaker(failureThreshold, openMs);
+
+        this.sent = Counter.builder("email.outbox.sent").register(meterRegistry);
+        this.retried = Counter.builder("email.outbox.retried").register(meterRegistry);
+        this.failed = Counter.builder("email.outbox.failed").register(meterRegistry);
+        Gauge.builder("email.outbox.circuit.state", circuitBreaker, cb -> cb.getState().ordinal())
+                .register(meterRegistry);
+    }
+
+    /**
+     * Run a dispatch soon, e.g. right after a transaction queued new emails.
+     * Wake-ups arriving while a run is active are folded into that run.
+     */
+    public void wakeUp() {
+        if (wakeUpRequested.compareAndSet(false, true)) {
+            taskScheduler.schedule(this::dispatchDue, Instant.now());
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${email.outbox.poll-interval-ms:5000}")
+    public void dispatchDue() {
+        if (!running.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            do {
+                wakeUpRequested.set(false);
+                dispatchWithLock();
+            } while (wakeUpRequested.get() && circuitBreaker.isCallPermitted());
+        } finally {
+            running.set(false);
+        }
+    }
+
+    private void dispatchWithLock() {
+        // While the circuit is open there is no point in touching the lock or the table
+        if (!circuitBreaker.isCallPermitted()) {
+            return;
+        }
+        if (!schedulerLockService.tryLock(DISPATCH_LOCK_NAME, Duration.ofMillis(lockAtMostForMs))) {
+            return;
+        }
+        try {
+            // Leave headroom so the lease never runs out while this replica is still sending
+            long deadline = System.currentTimeMillis() + lockAtMostForMs / 2;
+            List<EmailOutbox> batch;
+            do {
+                batch = emailOutboxRepository.findByStatusAndNextAttemptAtLessThanEqualOrderByNextAttemptAtAsc(
+                        EmailOutboxStatus.PENDING, OffsetDateTime.now(), PageRequest.of(0, batchSize));
+                sendAll(batch);
+            } while (batch.size() == batchSize
+                    && circuitBreaker.isCallPermitted()
+                    && System.currentTimeMillis() < deadline);
+        } finally {
+            schedulerLockService.unlock(DISPATCH_LOCK_NAME);
+        }
+    }
+
+    private void sendAll(List<EmailOutbox> batch) {
+        List<CompletableFuture<Void>> deliveries = new ArrayList<>(batch.size());
+        for (EmailOutbox message : batch) {
+            deliveries.add(CompletableFuture.runAsync(() -> deliver(message), sendExecutor));
+        }
+        // Bounded by the HTTP client's connect and read timeouts
+        CompletableFuture.allOf(deliveries.toArray(new CompletableFuture[0])).join();
+    }
+
+    private void deliver(EmailOutbox message) {
+        RenderedEmail email;
+        try {
+            email = emailService.render(message);
+        } catch (RuntimeException e) {
+            // Retrying will not fix a broken template or row, and it says nothing about SendGrid
+            log.error("Cannot render {} email {}", message.getType(), message.getId(), e);
+            recordFailure(message, false, "Render failed: " + e.getMessage());
+            return;
+        }
+
+        // Opened mid-batch: leave the rest pending for a later run
+        if (!circuitBreaker.tryAcquire()) {
+            return;
+        }
+        try {
+            emailService.send(message, email);
+            circuitBreaker.onSuccess();
+            emailOutboxRepository.updateDeliveryState(message.getId(), EmailOutboxStatus.SENT,
+                    message.getAttempts() + 1, message.getNextAttemptAt(), null, OffsetDateTime.now());
+            sent.increment();
+        } catch (EmailDeliveryException e) {
+            // A rejected message says nothing about SendGrid's health
+            if (e.isRetryable()) {
+                circuitBreaker.onFailure();
+            } else {
+                circuitBreaker.onSuccess();
+            }
+            recordFailure(message, e.isRetryable(), e.getMessage());
+        } catch (RuntimeException e) {
+            circuitBreaker.onFailure();
+            log.error("Unexpected error delivering email {}", message.getId(), e);
+            recordFailure(message, true, e.getMessage());
+        }
+    }
+
+    private void recordFailure(EmailOutbox message, boolean retryable, String error) {
+        int attempts = message.getAttempts() + 1;
+        String lastError = error != null && error.length() > MAX_ERROR_LENGTH ? error.substring(0, MAX_ERROR_LENGTH) : error;
+        try {
+            if (!retryable || attempts >= maxAttempts) {
+                emailOutboxRepository.updateDeliveryState(message.getId(), EmailOutboxStatus.FAILED,
+                        attempts, message.getNextAttemptAt(), lastError, null);
+                failed.increment();
+                log.warn("Giving up on {} email {} to {} after {} attempts: {}",
+                        message.getType(), message.getId(), message.getRecipient(), attempts, lastError);
+            } else {
+                OffsetDateTime nextAttemptAt = OffsetDateTime.now().plusNanos(backoffMs(attempts) * 1_000_000);
+                emailOutboxRepository.updateDeliveryState(message.getId(), EmailOutboxStatus.PENDING,
+                        attempts, nextAttemptAt, lastError, null);
+                retried.increment();
+            }
+        } catch (RuntimeException e) {
+            // The row stays due and is simply attempted again
+            log.error("Failed to record delivery failure for email {}", message.getId(), e);
+        }
+    }
+
+    // Exponential backoff with +/-20% jitter so failed messages don't retry in lockstep
+    private long backoffMs(int attempts) {
+        long delay = backoffInitialMs << Math.min(attempts - 1, 30);
+        if (delay <= 0 || delay > backoffMaxMs) {
+            delay = backoffMaxMs;
+        }
+        return (long) (delay * ThreadLocalRandom.current().nextDouble(0.8, 1.2));
+    }
+
+    @Scheduled(fixedRateString = "${email.outbox.purge-interval-ms:3600000}")
+    public void purgeSent() {
+        int purged = emailOutboxRepository.deleteByStatusAndCreatedAtBefore(
+                EmailOutboxStatus.SENT, OffsetDateTime.now().minusNanos(retentionMs * 1_000_000));
+        if (purged > 0) {
+            log.info("Purged {} sent outbox emails", purged);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        sendExecutor.shutdown();
+    }
+}
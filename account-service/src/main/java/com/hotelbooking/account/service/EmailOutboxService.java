@@ -0,0 +1,53 @@
+package com.hotelbooking.account.service;
+
+import com.hotelbooking.account.entity.Account;
+import com.hotelbooking.account.entity.EmailOutbox;
+import com.hotelbooking.account.enums.EmailType;
+import com.hotelbooking.account.repository.EmailOutboxRepository;
+import org.springframework.context.i18n.LocaleContext;
+import org.springframework.context.i18n.LocaleContextHolder;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Queues emails in the outbox table. Must run inside the transaction that changes the account,
+ * so the email exists if and only if the change commits.
+ */
+@Service
+public class EmailOutboxService {
+
+    private final EmailOutboxRepository emailOutboxRepository;
+    private final EmailOutboxDispatcher emailOutboxDispatcher;
+
+    public EmailOutboxService(EmailOutboxRepository emailOutboxRepository,
+                              EmailOutboxDispatcher emailOutboxDispatcher) {
+        this.emailOutboxRepository = emailOutboxRepository;
+        this.emailOutboxDispatcher = emailOutboxDispatcher;
+    }
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void enqueue(EmailType type, Account account, String token) {
+        EmailOutbox message = new EmailOutbox();
+        message.setType(type);
+        message.setRecipient(account.getEmail());
+        message.setUsername(account.getUsername());
+        message.setToken(token);
+        // Only HTTP requests carry a locale (Accept-Language); gRPC calls get the default template language
+        LocaleContext localeContext = LocaleContextHolder.getLocaleContext();
+        if (localeContext != null && localeContext.getLocale() != null) {
+            message.setLocale(localeContext.getLocale().toLanguageTag());
+        }
+        emailOutboxRepository.save(message);
+
+        // Don't wait for the next poll once the row is visible to the dispatcher
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                emailOutboxDispatcher.wakeUp();
+            }
+        });
+    }
+}
@@ -0,0 +1,11 @@
+package com.hotelbooking.account.service;
+
+/**
+ * Thrown when the maximum number of concurrent account exports is already running
+ */
+public class ExportCapacityExceededException extends RuntimeException {
+
+    public ExportCapacityExceededException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,149 @@
+package com.hotelbooking.account.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Optional;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Process-local store with TTL and a size bound. Tokens do not survive a restart
+ * and are not shared between replicas; use the jpa store for that.
+ * A reverse index from user to session ids makes revoking all of a user's sessions O(sessions).
+ */
+@Component
+@ConditionalOnProperty(name = "refresh-token.store", havingValue = "memory", matchIfMissing = true)
+public class InMemoryRefreshTokenStore implements RefreshTokenStore {
+
+    private final Map<UUID, RefreshTokenRecord> records = new ConcurrentHashMap<>();
+    private final Map<UUID, Set<UUID>> sessionsByUser = new ConcurrentHashMap<>();
+    private final int maxSize;
+    private final int evictionBatch;
+
+    public InMemoryRefreshTokenStore(@Value("${refresh-token.memory.max-size:100000}") int maxSize) {
+        this.maxSize = maxSize;
+        // Room made per eviction pass, so the full scan is paid once per batch of inserts
+        this.evictionBatch = Math.max(1, maxSize / 100);
+    }
+
+    @Override
+    public void save(RefreshTokenRecord record) {
+        if (records.size() >= maxSize) {
+            evict(Instant.now());
+        }
+        records.put(record.getFamilyId(), record);
+        sessionsByUser.computeIfAbsent(record.getUserId(), id -> ConcurrentHashMap.newKeySet())
+            .add(record.getFamilyId());
+    }
+
+    @Override
+    public Optional<RefreshTokenRecord> find(UUID familyId) {
+        RefreshTokenRecord record = records.get(familyId);
+        if (record == null) {
+            return Optional.empty();
+        }
+        if (record.isExpired(Instant.now())) {
+            remove(familyId, record);
+            return Optional.empty();
+        }
+        return Optional.of(record);
+    }
+
+    @Override
+    public boolean rotate(UUID familyId, long expectedGeneration) {
+        Instant now = Instant.now();
+        boolean[] rotated = {false};
+        records.computeIfPresent(familyId, (id, current) -> {
+            if (current.isExpired(now) || current.getGeneration() != expectedGeneration) {
+                return current;
+            }
+            rotated[0] = true;
+            return current.nextGeneration();
+        });
+        return rotated[0];
+    }
+
+    @Override
+    public void delete(UUID familyId) {
+        RefreshTokenRecord record = records.get(familyId);
+        if (record != null) {
+            remove(familyId, record);
+        }
+    }
+
+    @Override
+    public int deleteByUserId(UUID userId) {
+        Set<UUID> sessions = sessionsByUser.remove(userId);
+        if (sessions == null) {
+            return 0;
+        }
+        int removed = 0;
+        for (UUID familyId : sessions) {
+            if (records.remove(familyId) != null) {
+                removed++;
+            }
+        }
+        return removed;
+    }
+
+    @Override
+    public int deleteExpired(Instant now) {
+        int removed = 0;
+        for (Iterator<RefreshTokenRecord> it = records.values().iterator(); it.hasNext(); ) {
+            RefreshTokenRecord record = it.next();
+            if (record.isExpired(now)) {
+                it.remove();
+                unindex(record);
+                removed++;
+            }
+        }
+        return removed;
+    }
+
+    /**
+     * Bring the store down to maxSize - evictionBatch: expired sessions first, then the live
+     * sessions closest to expiry. One pass keeps only the batch to drop in a bounded heap.
+     */
+    private synchronized void evict(Instant now) {
+        if (records.size() < maxSize) {
+            return; // Another thread already made room
+        }
+        int target = maxSize - evictionBatch;
+        deleteExpired(now);
+        int excess = records.size() - target;
+        if (excess <= 0) {
+            return;
+        }
+        // Max-heap on expiry holding the `excess` soonest-expiring records seen so far
+        PriorityQueue<RefreshTokenRecord> soonest = new PriorityQueue<>(excess + 1,
+            Comparator.comparing(RefreshTokenRecord::getExpiresAt).reversed());
+        for (RefreshTokenRecord candidate : records.values()) {
+            soonest.offer(candidate);
+            if (soonest.size() > excess) {
+                soonest.poll();
+            }
+        }
+        soonest.forEach(victim -> remove(victim.getFamilyId(), victim));
+    }
+
+    private void remove(UUID familyId, RefreshTokenRecord record) {
+        if (records.remove(familyId, record)) {
+            unindex(record);
+        }
+    }
+
+    private void unindex(RefreshTokenRecord record) {
+        sessionsByUser.computeIfPresent(record.getUserId(), (userId, sessions) -> {
+            sessions.remove(record.getFamilyId());
+            return sessions.isEmpty() ? null : sessions;
+        });
+    }
+}
@@ -0,0 +1,87 @@
+package com.hotelbooking.account.service;
+
+import com.hotelbooking.account.entity.RefreshTokenFamily;
+import com.hotelbooking.account.repository.RefreshTokenRepository;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.Optional;
+import java.util.UUID;
+
+/**
+ * Durable store on the service datasource, shared by every replica.
+ * Lookups go through the family id primary key; rotation is a single conditional UPDATE.
+ */
+@Component
+@ConditionalOnProperty(name = "refresh-token.store", havingValue = "jpa")
+public class JpaRefreshTokenStore implements RefreshTokenStore {
+
+    private final RefreshTokenRepository refreshTokenRepository;
+
+    public JpaRefreshTokenStore(RefreshTokenRepository refreshTokenRepository) {
+        this.refreshTokenRepository = refreshTokenRepository;
+    }
+
+    @Override
+    @Transactional
+    public void save(RefreshTokenRecord record) {
+        RefreshTokenFamily entity = new RefreshTokenFamily();
+        entity.setFamilyId(record.getFamilyId());
+        entity.setGeneration(record.getGeneration());
+        entity.setUserId(record.getUserId());
+        entity.setIssuedAt(toOffsetDateTime(record.getIssuedAt()));
+        entity.setExpiresAt(toOffsetDateTime(record.getExpiresAt()));
+        refreshTokenRepository.save(entity);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public Optional<RefreshTokenRecord> find(UUID familyId) {
+        Instant now = Instant.now();
+        return refreshTokenRepository.findById(familyId)
+            .map(JpaRefreshTokenStore::toRecord)
+            .filter(record -> !record.isExpired(now));
+    }
+
+    @Override
+    @Transactional
+    public boolean rotate(UUID familyId, long expectedGeneration) {
+        return refreshTokenRepository.rotate(familyId, expectedGeneration, OffsetDateTime.now()) == 1;
+    }
+
+    @Override
+    @Transactional
+    public void delete(UUID familyId) {
+        refreshTokenRepository.deleteById(familyId);
+    }
+
+    @Override
+    @Transactional
+    public int deleteByUserId(UUID userId) {
+        return refreshTokenRepository.deleteByUserId(userId);
+    }
+
+    @Override
+    @Transactional
+    public int deleteExpired(Instant now) {
+        return refreshTokenRepository.deleteExpired(toOffsetDateTime(now));
+    }
+
+    private static RefreshTokenRecord toRecord(RefreshTokenFamily entity) {
+        return new RefreshTokenRecord(
+            entity.getFamilyId(),
+            entity.getGeneration(),
+            entity.getUserId(),
+            entity.getIssuedAt().toInstant(),
+            entity.getExpiresAt().toInstant()
+        );
+    }
+
+    private static OffsetDateTime toOffsetDateTime(Instant instant) {
+        return OffsetDateTime.ofInstant(instant, ZoneOffset.UTC);
+    }
+}
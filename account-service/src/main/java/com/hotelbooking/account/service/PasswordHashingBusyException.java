@@ -0,0 +1,16 @@
+package com.hotelbooking.account.service;
+
+/**
+ * Thrown when the password hashing pool is saturated and a hash request is shed
+ * instead of queued. Callers should surface it as a retryable "try again later".
+ */
+public class PasswordHashingBusyException extends RuntimeException {
+
+    public PasswordHashingBusyException(String message) {
+        super(message);
+    }
+
+    public PasswordHashingBusyException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
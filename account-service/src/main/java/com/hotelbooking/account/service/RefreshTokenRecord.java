@@ -0,0 +1,57 @@
+package com.hotelbooking.account.service;
+
+import java.time.Instant;
+import java.util.UUID;
+
+/**
+ * Immutable refresh token family as held by a {@link RefreshTokenStore}.
+ * generation counts the rotations so far; only the token of the current generation may still be used,
+ * and a genuine token of an earlier generation can only have been replayed.
+ */
+public final class RefreshTokenRecord {
+
+    private final UUID familyId;
+    private final long generation;
+    private final UUID userId;
+    private final Instant issuedAt;
+    private final Instant expiresAt;
+
+    public RefreshTokenRecord(UUID familyId, long generation, UUID userId, Instant issuedAt, Instant expiresAt) {
+        this.familyId = familyId;
+        this.generation = generation;
+        this.userId = userId;
+        this.issuedAt = issuedAt;
+        this.expiresAt = expiresAt;
+    }
+
+    public UUID getFamilyId() {
+        return familyId;
+    }
+
+    public long getGeneration() {
+        return generation;
+    }
+
+    public UUID getUserId() {
+        return userId;
+    }
+
+    public Instant getIssuedAt() {
+        return issuedAt;
+    }
+
+    public Instant getExpiresAt() {
+        return expiresAt;
+    }
+
+    public boolean isExpired(Instant now) {
+        return !expiresAt.isAfter(now);
+    }
+
+    /**
+     * The family after a rotation: the next generation becomes current, the expiry is unchanged
+     */
+    public RefreshTokenRecord nextGeneration() {
+        return new RefreshTokenRecord(familyId, generation + 1, userId, issuedAt, expiresAt);
+    }
+}
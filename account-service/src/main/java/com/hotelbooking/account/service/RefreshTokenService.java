@@ -1,36 +1,221 @@
 package com.hotelbooking.account.service;
 
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 
-import java.util.Map;
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.time.Instant;
+import java.util.Base64;
+import java.util.Optional;
 import java.util.UUID;
-import java.util.concurrent.ConcurrentHashMap;
 
+/**
+ * Issues and rotates refresh tokens. A token has the form {@code <familyId>.<generation>.<secret>}, where the
+ * secret is an HMAC of the family id and generation under refresh-token.signing-key. The family id finds the
+ * session in O(1), the secret proves the server issued that generation, and the family's current generation
+ * says whether it may still be used. A genuine token of any earlier generation was already consumed, so
+ * presenting it means it was replayed and the family is revoked. A session ends at the expiry set when it was
+ * issued, however often it is rotated.
+ */
 @Service
+@Slf4j
 public class RefreshTokenService {
-    // In-memory storage cho refresh tokens - thay thế Redis hoàn toàn
-    private final Map<String, String> tokenStore = new ConcurrentHashMap<>();
 
+    private static final String HMAC_ALGORITHM = "HmacSHA256";
+
+    private final RefreshTokenStore tokenStore;
+    private final ThreadLocal<Mac> mac;
+
+    @Value("${refresh-token.ttl-ms:604800000}") // 7 days
+    private long ttlMs;
+
+    public RefreshTokenService(RefreshTokenStore tokenStore,
+                               @Value("${refresh-token.signing-key:}") String signingKey) {
+        this.tokenStore = tokenStore;
+        SecretKeySpec key = new SecretKeySpec(signingKeyBytes(signingKey), HMAC_ALGORITHM);
+        this.mac = ThreadLocal.withInitial(() -> {
+            try {
+                Mac instance = Mac.getInstance(HMAC_ALGORITHM);
+                instance.init(key);
+                return instance;
+            } catch (GeneralSecurityException e) {
+                throw new IllegalStateException(HMAC_ALGORITHM + " not available", e);
+            }
+        });
+    }
+
+    /**
+     * Start a new session and return its first refresh token
+     */
     public String issueRefreshToken(String userId) {
-        String token = UUID.randomUUID().toString();
-        String key = refreshKey(token);
+        UUID familyId = UUID.randomUUID();
+        Instant now = Instant.now();
 
-        // Lưu vào memory thay vì Redis
-        tokenStore.put(key, userId);
-        return token;
+        tokenStore.save(new RefreshTokenRecord(
+            familyId,
+            0,
+            UUID.fromString(userId),
+            now,
+            now.plusMillis(ttlMs)
+        ));
+        return token(familyId, 0);
     }
 
+    /**
+     * Return the user id of a still-current refresh token without consuming it
+     */
     public String validateRefreshToken(String token) {
-        String key = refreshKey(token);
-        return tokenStore.get(key);
+        ParsedToken parsed = parseAuthentic(token);
+        if (parsed == null) {
+            return null;
+        }
+        return tokenStore.find(parsed.familyId)
+            .filter(record -> record.getGeneration() == parsed.generation)
+            .map(record -> record.getUserId().toString())
+            .orElse(null);
+    }
+
+    /**
+     * Consume the presented token and issue its successor in the same family.
+     * Returns empty if the token is forged, unknown or expired. If it is of a generation that was already
+     * consumed, the whole family is revoked.
+     */
+    public Optional<RotatedToken> rotateRefreshToken(String token) {
+        // A forged secret is rejected before any lookup, so knowing a family id is not enough to end the session
+        ParsedToken parsed = parseAuthentic(token);
+        if (parsed == null) {
+            return Optional.empty();
+        }
+        Optional<RefreshTokenRecord> family = tokenStore.find(parsed.familyId);
+        if (family.isEmpty()) {
+            return Optional.empty();
+        }
+
+        RefreshTokenRecord current = family.get();
+        if (parsed.generation > current.getGeneration()) {
+            return Optional.empty();
+        }
+        if (parsed.generation == current.getGeneration() && tokenStore.rotate(parsed.familyId, parsed.generation)) {
+            return Optional.of(new RotatedToken(current.getUserId(), token(parsed.familyId, parsed.generation + 1)));
+        }
+
+        // An older generation, or a concurrent request consumed this one first: either way the token was used twice
+        log.warn("Refresh token reuse detected, revoking a session of user {}", current.getUserId());
+        tokenStore.delete(parsed.familyId);
+        return Optional.empty();
     }
 
+    /**
+     * Revoke the session the token belongs to
+     */
     public void revoke(String token) {
-        String key = refreshKey(token);
-        tokenStore.remove(key);
+        ParsedToken parsed = ParsedToken.parse(token);
+        if (parsed != null) {
+            tokenStore.delete(parsed.familyId);
+        }
+    }
+
+    /**
+     * Revoke every session of the user, e.g. after a password change
+     */
+    public int revokeAllForUser(UUID userId) {
+        return tokenStore.deleteByUserId(userId);
+    }
+
+    /**
+     * Drop expired refresh tokens from the store
+     */
+    @Scheduled(fixedDelayString = "${refresh-token.purge-interval-ms:600000}")
+    public void purgeExpiredTokens() {
+        tokenStore.deleteExpired(Instant.now());
+    }
+
+    private String token(UUID familyId, long generation) {
+        return familyId + "." + generation + "." + sign(familyId, generation);
+    }
+
+    private String sign(UUID familyId, long generation) {
+        byte[] digest = mac.get().doFinal((familyId + "." + generation).getBytes(StandardCharsets.UTF_8));
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(digest);
+    }
+
+    private ParsedToken parseAuthentic(String token) {
+        ParsedToken parsed = ParsedToken.parse(token);
+        if (parsed == null) {
+            return null;
+        }
+        byte[] expected = sign(parsed.familyId, parsed.generation).getBytes(StandardCharsets.US_ASCII);
+        return MessageDigest.isEqual(expected, parsed.secret.getBytes(StandardCharsets.UTF_8)) ? parsed : null;
+    }
+
+    private static byte[] signingKeyBytes(String signingKey) {
+        if (signingKey != null && !signingKey.isBlank()) {
+            return signingKey.getBytes(StandardCharsets.UTF_8);
+        }
+        // Fine for a single node on the memory store; with the jpa store every replica needs the same key
+        log.warn("refresh-token.signing-key is not set, using a random key: refresh tokens will not survive "
+            + "a restart or be accepted by other replicas");
+        byte[] random = new byte[32];
+        new SecureRandom().nextBytes(random);
+        return random;
     }
 
-    private String refreshKey(String token) {
-        return "refresh:" + token;
+    /**
+     * Successor token handed back after a successful rotation
+     */
+    public static final class RotatedToken {
+        private final UUID userId;
+        private final String token;
+
+        private RotatedToken(UUID userId, String token) {
+            this.userId = userId;
+            this.token = token;
+        }
+
+        public UUID getUserId() {
+            return userId;
+        }
+
+        public String getToken() {
+            return token;
+        }
+    }
+
+    private static final class ParsedToken {
+        private final UUID familyId;
+        private final long generation;
+        private final String secret;
+
+        private ParsedToken(UUID familyId, long generation, String secret) {
+            this.familyId = familyId;
+            this.generation = generation;
+            this.secret = secret;
+        }
+
+        private static ParsedToken parse(String token) {
+            if (token == null) {
+                return null;
+            }
+            String[] parts = token.split("\\.", -1);
+            if (parts.length != 3 || parts[2].isEmpty()) {
+                return null;
+            }
+            try {
+                long generation = Long.parseLong(parts[1]);
+                if (generation < 0) {
+                    return null;
+                }
+                return new ParsedToken(UUID.fromString(parts[0]), generation, parts[2]);
+            } catch (IllegalArgumentException e) {
+                return null;
+            }
+        }
     }
 }
@@ -0,0 +1,41 @@
+package com.hotelbooking.account.service;
+
+import java.time.Instant;
+import java.util.Optional;
+import java.util.UUID;
+
+/**
+ * Storage for refresh token families, one record per login session.
+ * Select an implementation with refresh-token.store=memory (default) or jpa.
+ */
+public interface RefreshTokenStore {
+
+    void save(RefreshTokenRecord record);
+
+    /**
+     * Find an unexpired family by id
+     */
+    Optional<RefreshTokenRecord> find(UUID familyId);
+
+    /**
+     * Atomically advance the family to the next generation, but only if it is still at expectedGeneration.
+     * The expiry is left unchanged.
+     * Returns false if the family is gone, expired, or was already rotated by another request.
+     */
+    boolean rotate(UUID familyId, long expectedGeneration);
+
+    /**
+     * Revoke the whole family
+     */
+    void delete(UUID familyId);
+
+    /**
+     * Revoke every session of the user and return how many were removed
+     */
+    int deleteByUserId(UUID userId);
+
+    /**
+     * Remove every family that expired before the given instant and return how many were removed
+     */
+    int deleteExpired(Instant now);
+}
@@ -0,0 +1,83 @@
+package com.hotelbooking.account.service;
+
+import com.hotelbooking.account.entity.SchedulerLock;
+import com.hotelbooking.account.repository.SchedulerLockRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.net.InetAddress;
+import java.time.Duration;
+import java.time.OffsetDateTime;
+import java.util.UUID;
+
+/**
+ * Database-backed leases so a @Scheduled job runs on at most one replica at a time.
+ * A lease expires on its own after lockAtMostFor, so a crashed holder cannot block the job forever.
+ */
+@Service
+@Slf4j
+public class SchedulerLockService {
+
+    private final SchedulerLockRepository schedulerLockRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final String owner;
+
+    public SchedulerLockService(SchedulerLockRepository schedulerLockRepository,
+                                PlatformTransactionManager transactionManager) {
+        this.schedulerLockRepository = schedulerLockRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.owner = hostName() + ":" + UUID.randomUUID();
+    }
+
+    /**
+     * Try to take the named lease. Returns false if another instance holds it.
+     */
+    public boolean tryLock(String name, Duration lockAtMostFor) {
+        OffsetDateTime now = OffsetDateTime.now();
+        OffsetDateTime until = now.plus(lockAtMostFor);
+        try {
+            Boolean acquired = transactionTemplate.execute(status -> {
+                if (schedulerLockRepository.tryAcquire(name, owner, now, until) > 0) {
+                    return true;
+                }
+                if (schedulerLockRepository.existsById(name)) {
+                    return false;
+                }
+                SchedulerLock lock = new SchedulerLock();
+                lock.setName(name);
+                lock.setLockedAt(now);
+                lock.setLockedUntil(until);
+                lock.setLockedBy(owner);
+                schedulerLockRepository.saveAndFlush(lock);
+                return true;
+            });
+            return Boolean.TRUE.equals(acquired);
+        } catch (DataIntegrityViolationException e) {
+            // Another replica inserted the lock row first
+            return false;
+        }
+    }
+
+    public void unlock(String name) {
+        try {
+            transactionTemplate.executeWithoutResult(status ->
+                schedulerLockRepository.release(name, owner, OffsetDateTime.now()));
+        } catch (Exception e) {
+            // The lease still expires on its own
+            log.warn("Failed to release scheduler lock {}", name, e);
+        }
+    }
+
+    private static String hostName() {
+        try {
+            return InetAddress.getLocalHost().getHostName();
+        } catch (Exception e) {
+            return "unknown";
+        }
+    }
+}
@@ -0,0 +1,106 @@
+package com.hotelbooking.account.service;
+
+import com.hotelbooking.account.repository.AccountRepository;
+import com.hotelbooking.account.security.VerifiedToken;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.time.temporal.ChronoUnit;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Per-user "tokens issued at or before T are invalid" watermarks.
+ * Revoking everything for a user is one column update plus dropping their refresh sessions,
+ * instead of one blacklist row per outstanding access token. Reads are served from memory.
+ */
+@Service
+@Slf4j
+public class TokenRevocationService {
+
+    // Overlap between sync windows so rows committed late by other replicas are not missed
+    private static final long SYNC_OVERLAP_SECONDS = 5;
+
+    private final AccountRepository accountRepository;
+    private final RefreshTokenService refreshTokenService;
+    private final Map<UUID, Instant> watermarks = new ConcurrentHashMap<>();
+
+    // Watermarks older than the access token lifetime can no longer match a live token
+    @Value("${jwt.expiration:3600000}")
+    private long accessTokenTtlMs;
+
+    private volatile OffsetDateTime lastSyncAt;
+
+    public TokenRevocationService(AccountRepository accountRepository, RefreshTokenService refreshTokenService) {
+        this.accountRepository = accountRepository;
+        this.refreshTokenService = refreshTokenService;
+    }
+
+    /**
+     * Invalidate every access and refresh token issued to the user so far
+     */
+    @Transactional
+    public void revokeAllTokens(UUID userId) {
+        // Compared with the millisecond iat_ms claim, so a token minted right after this call stays valid.
+        // Tokens that only carry the whole-second iat compare as issued at the start of their second.
+        Instant watermark = Instant.now().truncatedTo(ChronoUnit.MILLIS);
+        accountRepository.updateTokensRevokedAt(userId, OffsetDateTime.ofInstant(watermark, ZoneOffset.UTC));
+        watermarks.merge(userId, watermark, (a, b) -> a.isAfter(b) ? a : b);
+        int sessions = refreshTokenService.revokeAllForUser(userId);
+        log.info("Revoked all tokens for user {} ({} refresh sessions)", userId, sessions);
+    }
+
+    /**
+     * Whether the token was issued before its user's revocation watermark
+     */
+    public boolean isRevoked(VerifiedToken verifiedToken) {
+        if (verifiedToken.getUserId() == null) {
+            return false;
+        }
+        Instant watermark = watermarks.get(verifiedToken.getUserId());
+        if (watermark == null) {
+            return false;
+        }
+        return verifiedToken.getIssuedAt() == null || !verifiedToken.getIssuedAt().isAfter(watermark);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional(readOnly = true)
+    public void loadWatermarks() {
+        OffsetDateTime now = OffsetDateTime.now();
+        loadSince(now.minusNanos(accessTokenTtlMs * 1_000_000));
+        lastSyncAt = now;
+    }
+
+    /**
+     * Pull watermarks written by other replicas and forget the ones no live token can predate
+     */
+    @Scheduled(fixedDelayString = "${jwt.revocation.sync-interval-ms:30000}")
+    @Transactional(readOnly = true)
+    public void syncWatermarks() {
+        if (lastSyncAt == null) {
+            return;
+        }
+        OffsetDateTime now = OffsetDateTime.now();
+        loadSince(lastSyncAt.minusSeconds(SYNC_OVERLAP_SECONDS));
+        lastSyncAt = now;
+
+        Instant oldestRelevant = now.toInstant().minusMillis(accessTokenTtlMs);
+        watermarks.values().removeIf(watermark -> watermark.isBefore(oldestRelevant));
+    }
+
+    private void loadSince(OffsetDateTime since) {
+        accountRepository.findByTokensRevokedAtAfter(since).forEach(account ->
+            watermarks.merge(account.getId(), account.getTokensRevokedAt().toInstant(),
+                (a, b) -> a.isAfter(b) ? a : b));
+    }
+}
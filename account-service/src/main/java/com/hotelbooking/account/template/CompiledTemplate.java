@@ -0,0 +1,84 @@
+package com.hotelbooking.account.template;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Template split once into static segments and named slots:
+ * segment[0] slot[0] segment[1] ... slot[n-1] segment[n].
+ * Rendering copies the segments and writes the escaped slot values, so its cost depends on the
+ * output size and the number of slots, never on re-parsing the template.
+ * Slots are written as {{name}}; every value is HTML-escaped.
+ */
+public final class CompiledTemplate {
+
+    private static final String OPEN = "{{";
+    private static final String CLOSE = "}}";
+
+    private final String name;
+    private final String subject;
+    private final String[] segments;
+    private final String[] slots;
+    // Static text plus some room per slot, to size the render buffer
+    private final int expectedLength;
+
+    private CompiledTemplate(String name, String subject, String[] segments, String[] slots) {
+        this.name = name;
+        this.subject = subject;
+        this.segments = segments;
+        this.slots = slots;
+        int length = 0;
+        for (String segment : segments) {
+            length += segment.length();
+        }
+        this.expectedLength = length + slots.length * 64;
+    }
+
+    public static CompiledTemplate compile(String name, String subject, String source) {
+        List<String> segments = new ArrayList<>();
+        List<String> slots = new ArrayList<>();
+        int position = 0;
+        while (true) {
+            int open = source.indexOf(OPEN, position);
+            if (open < 0) {
+                break;
+            }
+            int close = source.indexOf(CLOSE, open + OPEN.length());
+            if (close < 0) {
+                throw new IllegalArgumentException("Unclosed " + OPEN + " in template " + name);
+            }
+            String slot = source.substring(open + OPEN.length(), close).trim();
+            if (slot.isEmpty()) {
+                throw new IllegalArgumentException("Empty slot in template " + name);
+            }
+            segments.add(source.substring(position, open));
+            slots.add(slot);
+            position = close + CLOSE.length();
+        }
+        segments.add(source.substring(position));
+        return new CompiledTemplate(name, subject, segments.toArray(new String[0]), slots.toArray(new String[0]));
+    }
+
+    public String render(Map<String, String> values) {
+        RenderBuffer buffer = RenderBuffer.acquire(expectedLength);
+        for (int i = 0; i < slots.length; i++) {
+            buffer.write(segments[i]);
+            String value = values.get(slots[i]);
+            if (value == null) {
+                throw new IllegalArgumentException("No value for {{" + slots[i] + "}} in template " + name);
+            }
+            buffer.writeEscaped(value);
+        }
+        buffer.write(segments[slots.length]);
+        return buffer.finish();
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public String getSubject() {
+        return subject;
+    }
+}
@@ -0,0 +1,87 @@
+package com.hotelbooking.account.template;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.support.PathMatchingResourcePatternResolver;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Email templates, loaded and compiled once at startup from
+ * classpath:templates/email/{name}_{language}.html (e.g. verification_vi.html).
+ * A template may start with a {@code <!-- subject: ... -->} line giving its subject.
+ * Lookups fall back from the requested language to the default one.
+ */
+@Slf4j
+@Component
+public class EmailTemplateEngine {
+
+    private static final String LOCATION = "classpath*:templates/email/*.html";
+    private static final String SUBJECT_PREFIX = "<!-- subject:";
+    private static final String SUBJECT_SUFFIX = "-->";
+
+    // Keyed by name + "_" + language
+    private final Map<String, CompiledTemplate> templates;
+    private final String defaultLanguage;
+
+    public EmailTemplateEngine(@Value("${email.templates.default-locale:en}") String defaultLocale) throws IOException {
+        this.defaultLanguage = Locale.forLanguageTag(defaultLocale).getLanguage();
+        this.templates = load();
+        log.info("Compiled {} email templates", templates.size());
+    }
+
+    /**
+     * Render a template for the locale's language, or the default language if there is no variant
+     *
+     * @param locale may be null for the default language
+     * @throws IllegalArgumentException if the template does not exist or a slot has no value
+     */
+    public RenderedEmail render(String name, Locale locale, Map<String, String> values) {
+        CompiledTemplate template = null;
+        if (locale != null) {
+            template = templates.get(name + "_" + locale.getLanguage());
+        }
+        if (template == null) {
+            template = templates.get(name + "_" + defaultLanguage);
+        }
+        if (template == null) {
+            throw new IllegalArgumentException("No email template " + name + " for " + locale);
+        }
+        return new RenderedEmail(template.getSubject(), template.render(values));
+    }
+
+    private static Map<String, CompiledTemplate> load() throws IOException {
+        Map<String, CompiledTemplate> compiled = new HashMap<>();
+        for (Resource resource : new PathMatchingResourcePatternResolver().getResources(LOCATION)) {
+            String filename = resource.getFilename();
+            if (filename == null || filename.lastIndexOf('_') < 0) {
+                log.warn("Ignoring email template without a language suffix: {}", filename);
+                continue;
+            }
+            String key = filename.substring(0, filename.length() - ".html".length());
+            String source;
+            try (InputStream in = resource.getInputStream()) {
+                source = new String(in.readAllBytes(), StandardCharsets.UTF_8);
+            }
+
+            String subject = "";
+            if (source.startsWith(SUBJECT_PREFIX)) {
+                int end = source.indexOf(SUBJECT_SUFFIX);
+                if (end < 0) {
+                    throw new IllegalStateException("Unclosed subject comment in email template " + filename);
+                }
+                subject = source.substring(SUBJECT_PREFIX.length(), end).trim();
+                source = source.substring(end + SUBJECT_SUFFIX.length()).stripLeading();
+            }
+            compiled.put(key, CompiledTemplate.compile(key, subject, source));
+        }
+        return Map.copyOf(compiled);
+    }
+}
@@ -0,0 +1,65 @@
+package com.hotelbooking.account.template;
+
+/**
+ * StringBuilder reused per thread, so rendering does not allocate and grow a new builder for
+ * every email. Values are HTML-escaped straight into it; the only copy is the final toString,
+ * which the SendGrid request body needs anyway.
+ */
+final class RenderBuffer {
+
+    // Builders that grew beyond this are dropped after use instead of being kept per thread
+    private static final int MAX_RETAINED_CHARS = 128 * 1024;
+    private static final ThreadLocal<RenderBuffer> LOCAL = ThreadLocal.withInitial(() -> new RenderBuffer(16 * 1024));
+
+    private final StringBuilder chars;
+
+    private RenderBuffer(int capacity) {
+        this.chars = new StringBuilder(capacity);
+    }
+
+    /**
+     * @param expectedLength likely output length, reserved up front so the builder grows at most once
+     */
+    static RenderBuffer acquire(int expectedLength) {
+        RenderBuffer buffer = LOCAL.get();
+        buffer.chars.setLength(0);
+        buffer.chars.ensureCapacity(expectedLength);
+        return buffer;
+    }
+
+    void write(String segment) {
+        chars.append(segment);
+    }
+
+    void writeEscaped(String value) {
+        int length = value.length();
+        int start = 0;
+        for (int i = 0; i < length; i++) {
+            String entity = switch (value.charAt(i)) {
+                case '&' -> "&amp;";
+                case '<' -> "&lt;";
+                case '>' -> "&gt;";
+                case '"' -> "&quot;";
+                case '\'' -> "&#39;";
+                default -> null;
+            };
+            if (entity != null) {
+                // Copy the run of plain characters before the entity in one go
+                chars.append(value, start, i).append(entity);
+                start = i + 1;
+            }
+        }
+        chars.append(value, start, length);
+    }
+
+    /**
+     * Return the rendered text and release oversized storage
+     */
+    String finish() {
+        String result = chars.toString();
+        if (chars.capacity() > MAX_RETAINED_CHARS) {
+            LOCAL.remove();
+        }
+        return result;
+    }
+}
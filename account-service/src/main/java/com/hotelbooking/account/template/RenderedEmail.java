@@ -0,0 +1,4 @@
+package com.hotelbooking.account.template;
+
+public record RenderedEmail(String subject, String html) {
+}
@@ -0,0 +1,34 @@
+package com.hotelbooking.account.security;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ClientAddressResolverTest {
+
+    private final ClientAddressResolver resolver =
+        new ClientAddressResolver(new String[]{"10.0.0.0/8", "172.16.0.0/12"});
+
+    @Test
+    void ignoresForwardedForFromUntrustedPeer() {
+        assertThat(resolver.resolve("203.0.113.7", "198.51.100.1")).isEqualTo("203.0.113.7");
+    }
+
+    @Test
+    void takesRightmostUntrustedHopBehindTrustedProxies() {
+        // The caller prepended a forged entry; the gateway and an internal proxy appended the real hops
+        assertThat(resolver.resolve("172.18.0.5", "1.1.1.1, 203.0.113.7, 10.0.0.4"))
+            .isEqualTo("203.0.113.7");
+    }
+
+    @Test
+    void trustedPeerWithoutClientHopHasNoClientKey() {
+        assertThat(resolver.resolve("172.18.0.5", null)).isNull();
+        assertThat(resolver.resolve("172.18.0.5", "10.0.0.4")).isNull();
+    }
+
+    @Test
+    void neverTreatsHostnamesAsTrusted() {
+        assertThat(resolver.resolve("172.18.0.5", "10.0.0.4, internal.example")).isEqualTo("internal.example");
+    }
+}
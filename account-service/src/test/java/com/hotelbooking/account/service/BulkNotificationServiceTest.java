@@ -0,0 +1,129 @@
+package com.hotelbooking.account.service;
+
+import com.hotelbooking.account.dto.NotificationRecipient;
+import com.hotelbooking.account.entity.NotificationJob;
+import com.hotelbooking.account.enums.NotificationJobStatus;
+import com.hotelbooking.account.enums.RoleType;
+import com.hotelbooking.account.repository.AccountRepository;
+import com.hotelbooking.account.repository.NotificationJobRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class BulkNotificationServiceTest {
+
+    private final List<NotificationRecipient> recipients = List.of(
+        recipient(1), recipient(2), recipient(3), recipient(4));
+
+    private final AccountRepository accountRepository = mock(AccountRepository.class);
+    private final NotificationJobRepository notificationJobRepository = mock(NotificationJobRepository.class);
+    private final EmailService emailService = mock(EmailService.class);
+    // Recipients SendGrid refuses, and whether the refusal is retryable
+    private final Map<NotificationRecipient, Boolean> rejected = new HashMap<>();
+    // Last account id of every checkpoint, in order
+    private final List<UUID> checkpoints = new ArrayList<>();
+    private BulkNotificationService service;
+
+    @BeforeEach
+    void setUp() {
+        when(accountRepository.findNotificationRecipients(eq(RoleType.USER), any(), any()))
+            .thenReturn(recipients, List.of());
+        when(notificationJobRepository.save(any())).thenAnswer(invocation -> invocation.getArgument(0));
+        doAnswer(invocation -> {
+            List<NotificationRecipient> sent = invocation.getArgument(2);
+            for (NotificationRecipient recipient : sent) {
+                if (rejected.containsKey(recipient)) {
+                    throw new EmailDeliveryException("Rejected " + recipient.email(), rejected.get(recipient));
+                }
+            }
+            return null;
+        }).when(emailService).sendBulk(anyString(), anyString(), anyList());
+
+        service = new BulkNotificationService(accountRepository, notificationJobRepository, emailService,
+            new SimpleMeterRegistry(), 1, 1000);
+        ReflectionTestUtils.setField(service, "batchSize", recipients.size());
+        ReflectionTestUtils.setField(service, "maxAttempts", 2);
+        ReflectionTestUtils.setField(service, "backoffInitialMs", 1L);
+        ReflectionTestUtils.setField(service, "backoffMaxMs", 1L);
+        ReflectionTestUtils.setField(service, "maxSkipped", 10);
+    }
+
+    @AfterEach
+    void tearDown() {
+        service.shutdown();
+    }
+
+    @Test
+    void rejectedChunkIsBisectedAndOnlyTheBadRecipientSkipped() {
+        rejectWhenContaining(recipients.get(1), false);
+
+        NotificationJob job = start();
+
+        assertThat(job.getStatus()).isEqualTo(NotificationJobStatus.COMPLETED);
+        assertThat(job.getRecipientsSent()).isEqualTo(3);
+        assertThat(job.getRecipientsSkipped()).isEqualTo(1);
+        assertThat(job.getLastAccountId()).isEqualTo(recipients.get(3).id());
+        assertThat(checkpoints).containsExactly(
+            recipients.get(0).id(), recipients.get(1).id(), recipients.get(3).id());
+    }
+
+    @Test
+    void deliveredHalfIsCheckpointedWhenTheOtherHalfFailsTheJob() {
+        rejectWhenContaining(recipients.get(0), false);
+        rejectWhenContaining(recipients.get(3), true);
+
+        NotificationJob job = start();
+
+        assertThat(job.getStatus()).isEqualTo(NotificationJobStatus.FAILED);
+        assertThat(job.getRecipientsSent()).isEqualTo(1);
+        assertThat(job.getRecipientsSkipped()).isEqualTo(1);
+        // Resume continues after the second recipient instead of emailing it again
+        assertThat(job.getLastAccountId()).isEqualTo(recipients.get(1).id());
+    }
+
+    @Test
+    void tooManySkippedRecipientsFailTheJobAfterTheLastCheckpoint() {
+        ReflectionTestUtils.setField(service, "maxSkipped", 0);
+        rejectWhenContaining(recipients.get(2), false);
+
+        NotificationJob job = start();
+
+        assertThat(job.getStatus()).isEqualTo(NotificationJobStatus.FAILED);
+        assertThat(job.getRecipientsSent()).isEqualTo(2);
+        assertThat(job.getRecipientsSkipped()).isZero();
+        assertThat(job.getLastAccountId()).isEqualTo(recipients.get(1).id());
+    }
+
+    private NotificationJob start() {
+        return service.start(RoleType.USER, "Subject", "<p>Hello</p>", job -> {
+            if (job.getLastAccountId() != null && job.getStatus() == NotificationJobStatus.RUNNING) {
+                checkpoints.add(job.getLastAccountId());
+            }
+        }).join();
+    }
+
+    private void rejectWhenContaining(NotificationRecipient bad, boolean retryable) {
+        rejected.put(bad, retryable);
+    }
+
+    private static NotificationRecipient recipient(int n) {
+        return new NotificationRecipient(new UUID(0L, n), "user" + n + "@example.com", "user" + n);
+    }
+}
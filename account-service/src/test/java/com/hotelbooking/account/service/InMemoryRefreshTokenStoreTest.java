@@ -0,0 +1,62 @@
+package com.hotelbooking.account.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class InMemoryRefreshTokenStoreTest extends RefreshTokenStoreContractTest {
+
+    private InMemoryRefreshTokenStore store;
+
+    @BeforeEach
+    void setUp() {
+        store = new InMemoryRefreshTokenStore(1000);
+    }
+
+    @Override
+    protected RefreshTokenStore store() {
+        return store;
+    }
+
+    @Test
+    void evictsSessionsClosestToExpiryWhenFull() {
+        InMemoryRefreshTokenStore small = new InMemoryRefreshTokenStore(100);
+        List<RefreshTokenRecord> saved = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            RefreshTokenRecord record = record(UUID.randomUUID(), NOW.plus(i + 1, ChronoUnit.HOURS));
+            small.save(record);
+            saved.add(record);
+        }
+
+        RefreshTokenRecord newest = record(UUID.randomUUID(), NOW.plus(1, ChronoUnit.DAYS));
+        small.save(newest);
+
+        // One batch (1% of max size) made room: the soonest-expiring session is gone, the rest stay
+        assertThat(small.find(saved.get(0).getFamilyId())).isEmpty();
+        assertThat(small.find(saved.get(1).getFamilyId())).isPresent();
+        assertThat(small.find(newest.getFamilyId())).isPresent();
+    }
+
+    @Test
+    void prefersExpiredSessionsWhenFull() {
+        InMemoryRefreshTokenStore small = new InMemoryRefreshTokenStore(100);
+        RefreshTokenRecord expired = record(UUID.randomUUID(), NOW.minusSeconds(1));
+        small.save(expired);
+        List<RefreshTokenRecord> live = new ArrayList<>();
+        for (int i = 0; i < 99; i++) {
+            RefreshTokenRecord record = record(UUID.randomUUID(), NOW.plus(i + 1, ChronoUnit.HOURS));
+            small.save(record);
+            live.add(record);
+        }
+
+        small.save(record(UUID.randomUUID(), NOW.plus(1, ChronoUnit.DAYS)));
+
+        assertThat(live).allSatisfy(record -> assertThat(small.find(record.getFamilyId())).isPresent());
+    }
+}
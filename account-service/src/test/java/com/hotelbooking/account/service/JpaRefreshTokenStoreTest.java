@@ -0,0 +1,35 @@
+package com.hotelbooking.account.service;
+
+import com.hotelbooking.account.repository.RefreshTokenRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Runs the store contract on an embedded H2 database, with the schema generated from the entities
+ */
+@DataJpaTest(properties = {"refresh-token.store=jpa", "spring.jpa.hibernate.ddl-auto=create-drop"})
+@Import(JpaRefreshTokenStore.class)
+// Each store call commits on its own, as in production, so conditional UPDATEs are observed by later reads
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class JpaRefreshTokenStoreTest extends RefreshTokenStoreContractTest {
+
+    @Autowired
+    private JpaRefreshTokenStore store;
+
+    @Autowired
+    private RefreshTokenRepository refreshTokenRepository;
+
+    @BeforeEach
+    void setUp() {
+        refreshTokenRepository.deleteAll();
+    }
+
+    @Override
+    protected RefreshTokenStore store() {
+        return store;
+    }
+}
@@ -0,0 +1,72 @@
+package com.hotelbooking.account.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class RefreshTokenServiceTest {
+
+    private final String userId = UUID.randomUUID().toString();
+    private RefreshTokenService service;
+
+    @BeforeEach
+    void setUp() {
+        service = new RefreshTokenService(new InMemoryRefreshTokenStore(100), "test-signing-key");
+        ReflectionTestUtils.setField(service, "ttlMs", 60_000L);
+    }
+
+    @Test
+    void rotationConsumesThePresentedToken() {
+        String first = service.issueRefreshToken(userId);
+
+        String second = service.rotateRefreshToken(first).orElseThrow().getToken();
+
+        assertThat(service.validateRefreshToken(first)).isNull();
+        assertThat(service.validateRefreshToken(second)).isEqualTo(userId);
+    }
+
+    @Test
+    void replayOfTheRotatedTokenRevokesTheFamily() {
+        String first = service.issueRefreshToken(userId);
+        String second = service.rotateRefreshToken(first).orElseThrow().getToken();
+
+        assertThat(service.rotateRefreshToken(first)).isEmpty();
+        assertThat(service.validateRefreshToken(second)).isNull();
+    }
+
+    @Test
+    void replayOfATokenConsumedSeveralRotationsAgoRevokesTheFamily() {
+        String first = service.issueRefreshToken(userId);
+        String second = service.rotateRefreshToken(first).orElseThrow().getToken();
+        String third = service.rotateRefreshToken(second).orElseThrow().getToken();
+
+        assertThat(service.rotateRefreshToken(first)).isEmpty();
+        assertThat(service.validateRefreshToken(third)).isNull();
+    }
+
+    @Test
+    void forgedSecretForALiveFamilyDoesNotRevokeIt() {
+        String token = service.issueRefreshToken(userId);
+        String familyId = token.substring(0, token.indexOf('.'));
+
+        assertThat(service.rotateRefreshToken(familyId + ".0.forged")).isEmpty();
+        assertThat(service.validateRefreshToken(token)).isEqualTo(userId);
+    }
+
+    @Test
+    void tokenSignedWithAnotherKeyIsRejected() {
+        InMemoryRefreshTokenStore store = new InMemoryRefreshTokenStore(100);
+        RefreshTokenService issuer = new RefreshTokenService(store, "other-key");
+        ReflectionTestUtils.setField(issuer, "ttlMs", 60_000L);
+        String token = issuer.issueRefreshToken(userId);
+
+        RefreshTokenService verifier = new RefreshTokenService(store, "test-signing-key");
+        assertThat(verifier.validateRefreshToken(token)).isNull();
+        assertThat(verifier.rotateRefreshToken(token)).isEmpty();
+        assertThat(issuer.validateRefreshToken(token)).isEqualTo(userId);
+    }
+}
@@ -0,0 +1,117 @@
+package com.hotelbooking.account.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Behaviour every {@link RefreshTokenStore} must provide, run against each implementation
+ */
+abstract class RefreshTokenStoreContractTest {
+
+    protected abstract RefreshTokenStore store();
+
+    // Whole seconds so implementations that store coarser timestamps compare equal
+    protected static final Instant NOW = Instant.now().truncatedTo(ChronoUnit.SECONDS);
+
+    protected static RefreshTokenRecord record(UUID userId, Instant expiresAt) {
+        return new RefreshTokenRecord(UUID.randomUUID(), 0, userId, NOW, expiresAt);
+    }
+
+    @Test
+    void findsSavedFamily() {
+        RefreshTokenRecord saved = record(UUID.randomUUID(), NOW.plus(1, ChronoUnit.DAYS));
+        store().save(saved);
+
+        assertThat(store().find(saved.getFamilyId())).hasValueSatisfying(found -> {
+            assertThat(found.getGeneration()).isZero();
+            assertThat(found.getUserId()).isEqualTo(saved.getUserId());
+        });
+    }
+
+    @Test
+    void doesNotFindUnknownOrExpiredFamily() {
+        RefreshTokenRecord expired = record(UUID.randomUUID(), NOW.minusSeconds(1));
+        store().save(expired);
+
+        assertThat(store().find(UUID.randomUUID())).isEmpty();
+        assertThat(store().find(expired.getFamilyId())).isEmpty();
+    }
+
+    @Test
+    void rotatesOnlyFromTheCurrentGeneration() {
+        RefreshTokenRecord saved = record(UUID.randomUUID(), NOW.plus(1, ChronoUnit.DAYS));
+        store().save(saved);
+
+        assertThat(store().rotate(saved.getFamilyId(), 0)).isTrue();
+        // The old token lost the race, or is being replayed
+        assertThat(store().rotate(saved.getFamilyId(), 0)).isFalse();
+        assertThat(store().find(saved.getFamilyId())).hasValueSatisfying(found ->
+            assertThat(found.getGeneration()).isEqualTo(1));
+    }
+
+    @Test
+    void rotationAdvancesGenerationAndKeepsOriginalExpiry() {
+        RefreshTokenRecord saved = record(UUID.randomUUID(), NOW.plus(1, ChronoUnit.DAYS));
+        store().save(saved);
+
+        store().rotate(saved.getFamilyId(), 0);
+        store().rotate(saved.getFamilyId(), 1);
+
+        assertThat(store().find(saved.getFamilyId())).hasValueSatisfying(found -> {
+            assertThat(found.getGeneration()).isEqualTo(2);
+            assertThat(found.getExpiresAt()).isEqualTo(saved.getExpiresAt());
+        });
+    }
+
+    @Test
+    void doesNotRotateUnknownOrExpiredFamily() {
+        RefreshTokenRecord expired = record(UUID.randomUUID(), NOW.minusSeconds(1));
+        store().save(expired);
+
+        assertThat(store().rotate(UUID.randomUUID(), 0)).isFalse();
+        assertThat(store().rotate(expired.getFamilyId(), 0)).isFalse();
+    }
+
+    @Test
+    void deletesFamily() {
+        RefreshTokenRecord saved = record(UUID.randomUUID(), NOW.plus(1, ChronoUnit.DAYS));
+        store().save(saved);
+
+        store().delete(saved.getFamilyId());
+
+        assertThat(store().find(saved.getFamilyId())).isEmpty();
+    }
+
+    @Test
+    void deletesEverySessionOfOneUser() {
+        UUID userId = UUID.randomUUID();
+        RefreshTokenRecord first = record(userId, NOW.plus(1, ChronoUnit.DAYS));
+        RefreshTokenRecord second = record(userId, NOW.plus(1, ChronoUnit.DAYS));
+        RefreshTokenRecord other = record(UUID.randomUUID(), NOW.plus(1, ChronoUnit.DAYS));
+        store().save(first);
+        store().save(second);
+        store().save(other);
+
+        assertThat(store().deleteByUserId(userId)).isEqualTo(2);
+
+        assertThat(store().find(first.getFamilyId())).isEmpty();
+        assertThat(store().find(second.getFamilyId())).isEmpty();
+        assertThat(store().find(other.getFamilyId())).isPresent();
+    }
+
+    @Test
+    void deletesOnlyExpiredFamilies() {
+        RefreshTokenRecord expired = record(UUID.randomUUID(), NOW.minusSeconds(1));
+        RefreshTokenRecord live = record(UUID.randomUUID(), NOW.plus(1, ChronoUnit.DAYS));
+        store().save(expired);
+        store().save(live);
+
+        assertThat(store().deleteExpired(NOW)).isEqualTo(1);
+        assertThat(store().find(live.getFamilyId())).isPresent();
+    }
+}
@@ -0,0 +1,52 @@
+package com.hotelbooking.account.service;
+
+import com.hotelbooking.account.repository.AccountRepository;
+import com.hotelbooking.account.security.VerifiedToken;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jwts;
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.Date;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+
+class TokenRevocationServiceTest {
+
+    private final TokenRevocationService service =
+        new TokenRevocationService(mock(AccountRepository.class), mock(RefreshTokenService.class));
+    private final UUID userId = UUID.randomUUID();
+
+    @Test
+    void tokenIssuedInTheSameSecondAfterRevocationStaysValid() throws InterruptedException {
+        Instant before = Instant.now();
+        service.revokeAllTokens(userId);
+        Thread.sleep(2);
+        Instant after = Instant.now();
+
+        assertThat(service.isRevoked(token(before, true))).isTrue();
+        assertThat(service.isRevoked(token(after, true))).isFalse();
+    }
+
+    @Test
+    void legacyTokenWithoutMillisecondsIsRevokedWithinTheSecond() {
+        Instant issuedAt = Instant.now();
+        service.revokeAllTokens(userId);
+
+        assertThat(service.isRevoked(token(issuedAt, false))).isTrue();
+    }
+
+    private VerifiedToken token(Instant issuedAt, boolean withMillis) {
+        Claims claims = Jwts.claims();
+        claims.put("userId", userId.toString());
+        // A serialized iat only keeps whole seconds
+        claims.setIssuedAt(Date.from(issuedAt.truncatedTo(ChronoUnit.SECONDS)));
+        if (withMillis) {
+            claims.put(VerifiedToken.ISSUED_AT_MS_CLAIM, issuedAt.toEpochMilli());
+        }
+        return VerifiedToken.fromClaims(claims);
+    }
+}
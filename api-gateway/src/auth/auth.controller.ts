@@ -1,4 +1,5 @@
-import { Controller, Post, Body, HttpCode, HttpStatus } from '@nestjs/common';
+import { Controller, Post, Body, HttpCode, HttpStatus, Req } from '@nestjs/common';
+import type { Request } from 'express';
 import { AuthService } from './auth.service';
 import { LoginDto } from './dto/login.dto';
 import { RegisterDto } from './dto/register.dto';
@@ -9,8 +10,8 @@ export class AuthController {
 
   @Post('login')
   @HttpCode(HttpStatus.OK)
-  async login(@Body() loginDto: LoginDto) {
-    return this.authService.login(loginDto);
+  async login(@Body() loginDto: LoginDto, @Req() req: Request) {
+    return this.authService.login(loginDto, forwardedFor(req));
   }
 
   @Post('register')
@@ -25,3 +26,15 @@ export class AuthController {
     return this.authService.refreshToken(refreshToken);
   }
 }
+
+// Append our direct peer to any X-Forwarded-For chain, as every proxy hop does, so the
+// account service can tell clients apart for login throttling
+function forwardedFor(req: Request): string | undefined {
+  const peer = req.socket.remoteAddress?.replace(/^::ffff:/, '');
+  const existing = req.headers['x-forwarded-for'];
+  const chain = Array.isArray(existing) ? existing.join(', ') : existing;
+  if (!peer) {
+    return chain;
+  }
+  return chain ? `${chain}, ${peer}` : peer;
+}
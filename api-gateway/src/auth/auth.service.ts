@@ -1,12 +1,13 @@
 import { Injectable, UnauthorizedException } from '@nestjs/common';
 import type { ClientGrpc } from '@nestjs/microservices';
 import { Inject } from '@nestjs/common';
+import { Metadata } from '@grpc/grpc-js';
 import { Observable, firstValueFrom } from 'rxjs';
 import { LoginDto } from './dto/login.dto';
 import { RegisterDto } from './dto/register.dto';
 
 interface IAccountService {
-  login(data: LoginDto): Observable<any>;
+  login(data: LoginDto, metadata?: Metadata): Observable<any>;
   register(data: RegisterDto): Observable<any>;
   refreshToken(data: { refreshToken: string }): Observable<any>;
 }
@@ -22,9 +23,13 @@ export class AuthService {
       this.client.getService<IAccountService>('AccountService');
   }
 
-  async login(loginDto: LoginDto) {
+  async login(loginDto: LoginDto, forwardedFor?: string) {
+    const metadata = new Metadata();
+    if (forwardedFor) {
+      metadata.set('x-forwarded-for', forwardedFor);
+    }
     try {
-      return await firstValueFrom(this.accountService.login(loginDto));
+      return await firstValueFrom(this.accountService.login(loginDto, metadata));
     } catch (error) {
       throw new UnauthorizedException('Invalid credentials');
     }